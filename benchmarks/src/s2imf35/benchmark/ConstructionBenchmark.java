@@ -0,0 +1,77 @@
+package s2imf35.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import s2imf35.Parser;
+import s2imf35.graph.CompressedLTS;
+import s2imf35.graph.LTS;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to build a graph in the CSR format from its edges, without and with building the indices
+ * of all labels, which are otherwise built when the labels are first used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConstructionBenchmark {
+    // The graph to build, relative to the input directory.
+    @Param({"experiment1/dining_8.aut", "experiment3/german_linear_4.1.aut", "experiment4/robots_350.aut"})
+    public String model;
+
+    // The generic information of the graph.
+    private int firstState, numberOfTransitions, numberOfStates;
+    private List<String> labels;
+
+    // The edges of the graph.
+    private int[] startStates, labelIds, endStates;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        LTS graph = Parser.parseSystemFile(Inputs.path(model), true);
+        firstState = graph.firstState;
+        numberOfTransitions = graph.numberOfTransitions;
+        numberOfStates = graph.numberOfStates;
+        labels = graph.getLabels();
+
+        int m = 0;
+        for(int label = 0; label < graph.numberOfLabels(); label++) {
+            for(int s = 0; s < numberOfStates; s++) {
+                m += graph.getDegree(s, label);
+            }
+        }
+        startStates = new int[m];
+        labelIds = new int[m];
+        endStates = new int[m];
+        for(int label = 0, i = 0; label < graph.numberOfLabels(); label++) {
+            for(int s = 0; s < numberOfStates; s++) {
+                for(int j = 0, d = graph.getDegree(s, label); j < d; j++, i++) {
+                    startStates[i] = s;
+                    labelIds[i] = label;
+                    endStates[i] = graph.getEndpoint(s, label, j);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public LTS construct() {
+        return new CompressedLTS(firstState, numberOfTransitions, numberOfStates, labels, startStates, labelIds,
+                endStates);
+    }
+
+    @Benchmark
+    public LTS constructAndIndex() {
+        LTS graph = construct();
+        for(int label = 0; label < graph.numberOfLabels(); label++) {
+            graph.getDegree(graph.firstState, label);
+            graph.getInDegree(graph.firstState, label);
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,45 @@
+package s2imf35.benchmark;
+
+import s2imf35.graph.LTS;
+
+import java.nio.file.Paths;
+
+/**
+ * Helper methods to locate the bundled inputs of the benchmarks and prepare them.
+ */
+final class Inputs {
+    // The directory holding the inputs, relative to the working directory unless it is absolute.
+    private static final String ROOT = System.getProperty("s2imf35.inputs", "inputs");
+
+    /**
+     * Find the location of an input file.
+     *
+     * @param name The name of the file, relative to the input directory.
+     * @return The path to the file.
+     */
+    static String path(String name) {
+        return Paths.get(ROOT, name).toString();
+    }
+
+    /**
+     * Find the label with the most transitions in the given graph.
+     *
+     * @param graph The graph to search.
+     * @return The id of the label with the most transitions.
+     */
+    static int mostFrequentLabel(LTS graph) {
+        int best = 0;
+        long bestCount = -1;
+        for(int label = 0; label < graph.numberOfLabels(); label++) {
+            long count = 0;
+            for(int s = 0; s < graph.numberOfStates; s++) {
+                count += graph.getDegree(s, label);
+            }
+            if(count > bestCount) {
+                best = label;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+}
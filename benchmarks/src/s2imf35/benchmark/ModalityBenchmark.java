@@ -0,0 +1,71 @@
+package s2imf35.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import s2imf35.Parser;
+import s2imf35.PerformanceCounter;
+import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
+import s2imf35.operator.AbstractComponent;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single evaluation of a diamond and a box modality over the label with the most transitions, applied to a
+ * recursion variable that holds every other state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModalityBenchmark {
+    // The graph the modalities are evaluated on, relative to the input directory.
+    @Param({"experiment1/dining_8.aut", "experiment3/german_linear_4.1.aut", "experiment4/robots_350.aut"})
+    public String model;
+
+    private LTS graph;
+    private AbstractComponent diamond, box;
+    private Map<String, StateSet> A;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        graph = Parser.parseSystemFile(Inputs.path(model), true);
+        String label = graph.getLabel(Inputs.mostFrequentLabel(graph));
+        diamond = parse("<" + label + ">X");
+        box = parse("[" + label + "]X");
+
+        StateSet X = graph.emptySet();
+        for(int s = 0; s < graph.numberOfStates; s += 2) {
+            X.add(s);
+        }
+        A = new HashMap<>();
+        A.put("X", X);
+    }
+
+    /**
+     * Parse the given formula, and set the open variable tags in the same way as the parser of the input files.
+     *
+     * @param input The formula.
+     * @return A parse tree representing the formula.
+     */
+    private static AbstractComponent parse(String input) {
+        AbstractComponent formula = AbstractComponent.parse(input);
+        formula.propagateOpenVariables();
+        formula.propagateOpenSubFormulae();
+        return formula;
+    }
+
+    @Benchmark
+    public StateSet diamond() {
+        return diamond.emersonLei(graph, A, null, new PerformanceCounter());
+    }
+
+    @Benchmark
+    public StateSet box() {
+        return box.emersonLei(graph, A, null, new PerformanceCounter());
+    }
+}
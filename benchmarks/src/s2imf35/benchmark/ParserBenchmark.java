@@ -0,0 +1,57 @@
+package s2imf35.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import s2imf35.Parser;
+import s2imf35.graph.LTS;
+import s2imf35.graph.LTSSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to load a graph, from the Aldebaran format into either representation and from a snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    // The graph to load, relative to the input directory.
+    @Param({"experiment1/dining_8.aut", "experiment3/german_linear_4.1.aut", "experiment4/robots_350.aut"})
+    public String model;
+
+    // The location of the graph, and of a snapshot of it.
+    private String path;
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        path = Inputs.path(model);
+        snapshot = Files.createTempFile("benchmark", LTSSnapshot.EXTENSION);
+        LTSSnapshot.write(Parser.parseSystemFile(path, true), snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public LTS compressed() throws IOException {
+        return Parser.parseSystemFile(path, true);
+    }
+
+    @Benchmark
+    public LTS edgeList() throws IOException {
+        return Parser.parseSystemFile(path, false);
+    }
+
+    @Benchmark
+    public LTS snapshot() throws IOException {
+        return LTSSnapshot.read(snapshot);
+    }
+}
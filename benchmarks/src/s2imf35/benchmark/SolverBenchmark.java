@@ -0,0 +1,54 @@
+package s2imf35.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import s2imf35.Parser;
+import s2imf35.Solution;
+import s2imf35.Solver;
+import s2imf35.graph.LTS;
+import s2imf35.operator.AbstractComponent;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the naive and Emerson-Lei algorithms on the bundled experiments. The formula is looked up in the directory
+ * of the model, so other experiments are selected by overriding both parameters, for example with
+ * -p model=experiment3/german_linear_3.1.aut -p formula=infinitely_often_exclusive.mcf.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    // The graph the formula is checked against, relative to the input directory.
+    @Param({"experiment1/dining_4.aut", "experiment1/dining_6.aut", "experiment1/dining_8.aut"})
+    public String model;
+
+    // The formula to check, relative to the directory of the model.
+    @Param({"invariantly_inevitably_eat.mcf", "invariantly_plato_starves.mcf", "invariantly_possibly_eat.mcf",
+            "plato_infinitely_often_can_eat.mcf"})
+    public String formula;
+
+    private LTS graph;
+    private AbstractComponent parsedFormula;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String path = Inputs.path(model);
+        graph = Parser.parseSystemFile(path, true);
+        parsedFormula = Parser.parseFormulaFile(Paths.get(path).resolveSibling(formula).toString());
+    }
+
+    @Benchmark
+    public Solution naive() {
+        return Solver.solveNaive(parsedFormula, graph);
+    }
+
+    @Benchmark
+    public Solution emersonLei() {
+        return Solver.solveEmersonLei(parsedFormula, graph);
+    }
+}
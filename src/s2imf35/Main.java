@@ -2,9 +2,15 @@ package s2imf35;
 
 import s2imf35.experiment.*;
 import s2imf35.graph.LTS;
+import s2imf35.graph.Quotient;
 import s2imf35.operator.AbstractComponent;
+import s2imf35.server.CheckServer;
+import s2imf35.server.GraphCache;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,7 +33,9 @@ public class Main {
         }
 
         // Check which tests to perform. Here, single inputs have priority over experiment/unit tests.
-        if(argMap.containsKey("-graph")) {
+        if(argMap.containsKey("-server")) {
+            serve(argMap);
+        } else if(argMap.containsKey("-graph")) {
             run(argMap);
         } else {
             // Run the specified tests.
@@ -48,6 +56,9 @@ public class Main {
                     case "-unit":
                         new UnitTest().run(argMap);
                         break;
+                    case "-batch":
+                        new BatchExperiment().run(argMap);
+                        break;
                 }
             }
         }
@@ -59,7 +70,7 @@ public class Main {
      * @param args The arguments to parse.
      * @return A mapping in which the value of each argument is stored.
      */
-    private static Map<String, Object> parseArguments(String[] args) {
+    public static Map<String, Object> parseArguments(String[] args) {
         Map<String, Object> data = new HashMap<>();
 
         // Read all of the arguments and parse to the desired format.
@@ -72,9 +83,31 @@ public class Main {
             } else if(arg.startsWith("-graph")) {
                 data.put("-graph", arg.substring(arg.indexOf("=") + 1, arg.length()));
             } else if(arg.equals("-mode=improved") || arg.equals("-mode=1")) {
-                data.put("-mode", true);
+                data.put("-mode", Mode.EMERSON_LEI);
             } else if(arg.equals("-mode=naive") || arg.equals("-mode=0")) {
-                data.put("-mode", false);
+                data.put("-mode", Mode.NAIVE);
+            } else if(arg.equals("-mode=incremental") || arg.equals("-mode=2")) {
+                data.put("-mode", Mode.INCREMENTAL);
+            } else if(arg.equals("-mode=compiled") || arg.equals("-mode=3")) {
+                data.put("-mode", Mode.COMPILED);
+            } else if(arg.equals("-mode=zielonka") || arg.equals("-mode=4")) {
+                data.put("-mode", Mode.ZIELONKA);
+            } else if(arg.equals("-mode=spm") || arg.equals("-mode=5")) {
+                data.put("-mode", Mode.PROGRESS_MEASURES);
+            } else if(arg.equals("-mode=local") || arg.equals("-mode=6")) {
+                data.put("-mode", Mode.LOCAL);
+            } else if(arg.equals("-mode=parallel") || arg.equals("-mode=7")) {
+                data.put("-mode", Mode.PARALLEL);
+            } else if(arg.equals("-mode=symbolic") || arg.equals("-mode=8")) {
+                data.put("-mode", Mode.SYMBOLIC);
+            } else if(arg.equals("-mode=scc") || arg.equals("-mode=9")) {
+                data.put("-mode", Mode.SCC);
+            } else if(arg.startsWith("-parallelism=")) {
+                data.put("-parallelism", Integer.parseInt(arg.substring(arg.indexOf("=") + 1)));
+            } else if(arg.startsWith("-batch=")) {
+                data.put("-batch", arg.substring(arg.indexOf("=") + 1));
+            } else if(arg.startsWith("-threads=")) {
+                data.put("-threads", Integer.parseInt(arg.substring(arg.indexOf("=") + 1)));
             } else if(arg.equals("-experiment1")) {
                 data.put("-experiment1", true);
             } else if(arg.equals("-experiment2")) {
@@ -83,6 +116,26 @@ public class Main {
                 data.put("-experiment3", true);
             } else if(arg.equals("-experiment4")) {
                 data.put("-experiment4", true);
+            } else if(arg.equals("-offheap")) {
+                data.put("-offheap", "");
+            } else if(arg.startsWith("-offheap=")) {
+                data.put("-offheap", arg.substring(arg.indexOf("=") + 1));
+            } else if(arg.equals("-server")) {
+                data.put("-server", 7350);
+            } else if(arg.startsWith("-server=")) {
+                data.put("-server", Integer.parseInt(arg.substring(arg.indexOf("=") + 1)));
+            } else if(arg.startsWith("-cache=")) {
+                data.put("-cache", Long.parseLong(arg.substring(arg.indexOf("=") + 1)));
+            } else if(arg.startsWith("-resultcache=")) {
+                data.put("-resultcache", arg.substring(arg.indexOf("=") + 1));
+            } else if(arg.startsWith("-resultcachesize=")) {
+                data.put("-resultcachesize", Long.parseLong(arg.substring(arg.indexOf("=") + 1)));
+            } else if(arg.equals("-profile")) {
+                data.put("-profile", "");
+            } else if(arg.startsWith("-profile=")) {
+                data.put("-profile", arg.substring(arg.indexOf("=") + 1));
+            } else if(arg.equals("-minimize")) {
+                data.put("-minimize", true);
             } else if(arg.equals("-unit")) {
                 data.put("-unit", true);
             } else if(arg.equals("-all")) {
@@ -115,34 +168,87 @@ public class Main {
         }
 
         // Find the optional parameters.
-        Boolean improved = (Boolean) args.getOrDefault("-mode", null);
+        Mode mode = (Mode) args.getOrDefault("-mode", null);
+        boolean minimize = (boolean) args.getOrDefault("-minimize", false);
+        int parallelism = (int) args.getOrDefault("-parallelism", Runtime.getRuntime().availableProcessors());
+        String offHeap = (String) args.getOrDefault("-offheap", null);
+        String profileFile = (String) args.getOrDefault("-profile", null);
 
         // Everything is filled in. Call the solver with the correct configuration.
         AbstractComponent formula = Parser.parseFormulaFile(formulaFile);
-        LTS graph = Parser.parseSystemFile(graphFile);
+        LTS graph = offHeap == null ? Parser.parseSystemFile(graphFile) :
+                Parser.parseSystemFileOffHeap(graphFile, offHeap.isEmpty() ? null : Paths.get(offHeap));
 
         System.out.println("Formula: [" + formula.toLatex() + "]");
 
+        // Solve on the quotient under strong bisimulation if requested, which satisfies the same formulae.
+        Quotient quotient = null;
+        if(minimize) {
+            Instant start = Instant.now();
+            quotient = Quotient.minimize(graph);
+            long duration = Duration.between(start, Instant.now()).toMillis();
+            System.out.println("Minimized the graph from " + graph.numberOfStates + " to " +
+                    quotient.graph.numberOfStates + " states in " + duration + " milliseconds.");
+        }
+        LTS solvedGraph = quotient == null ? graph : quotient.graph;
+
+        // Profile the evaluation of the nodes of the formula if requested, which is done for Emerson-Lei by default.
+        Profile profile = profileFile == null ? null : new Profile();
+
         Solution solution;
-        if(improved == null) {
-            solution = Solver.solveNaive(formula, graph);
+        if(mode == null) {
+            solution = expand(Solver.solveNaive(formula, solvedGraph), quotient);
             System.out.println("Naive Solution: " + solution);
 
-            Solution solution2 = solution = Solver.solveEmersonLei(formula, graph);
+            Solution solution2 = solution = expand(Solver.solveEmersonLei(formula, solvedGraph, profile), quotient);
             System.out.println("Emerson-Lei Solution: " + solution);
 
             if(!solution.states.equals(solution2.states)) {
                 System.out.println("WARNING: THE SOLUTIONS OF THE NAIVE AND EMERSON-LEI ALGORITHMS ARE UNEQUAL!");
             }
-        } else if(improved) {
-            solution = Solver.solveEmersonLei(formula, graph);
-            System.out.println("Emerson-Lei Solution: " + solution);
+        } else if(mode == Mode.PARALLEL) {
+            solution = expand(Solver.solveParallel(formula, solvedGraph, parallelism, profile), quotient);
+            System.out.println(mode.title + " Solution: " + solution);
         } else {
-            solution = Solver.solveNaive(formula, graph);
-            System.out.println("Naive Solution: " + solution);
+            solution = expand(Solver.solve(mode, formula, solvedGraph, profile), quotient);
+            System.out.println(mode.title + " Solution: " + solution);
+        }
+
+        if(profile != null) {
+            System.out.println(profile.toTree(formula));
+            if(!profileFile.isEmpty()) {
+                profile.export(formula, Paths.get(profileFile));
+            }
         }
 
         // Print the solution under any verbosity level.
         System.out.println("Evaluation: " + solution.states.contains(graph.firstState));
     }
+
+    /**
+     * Start a server that answers checks on the loopback address, and keeps the parsed graphs in memory.
+     *
+     * @param args The arguments of the server, which should always include the port.
+     * @throws IOException Thrown when the server socket cannot be opened.
+     */
+    private static void serve(Map<String, Object> args) throws IOException {
+        // The size of the cache is given in megabytes, and defaults to half of the maximum heap size.
+        long budget = (long) args.getOrDefault("-cache", Runtime.getRuntime().maxMemory() >> 21) << 20;
+        int threads = (int) args.getOrDefault("-threads", Runtime.getRuntime().availableProcessors());
+        new CheckServer((int) args.get("-server"), threads, new GraphCache(budget)).run();
+    }
+
+    /**
+     * Map a solution on the quotient of a graph back to the states of the original graph.
+     *
+     * @param solution The solution on the quotient.
+     * @param quotient The quotient the solution was computed on, or null if the original graph was used.
+     * @return The solution on the original graph.
+     */
+    private static Solution expand(Solution solution, Quotient quotient) {
+        if(quotient == null) {
+            return solution;
+        }
+        return new Solution(quotient.expand(solution.states), solution.counter);
+    }
 }
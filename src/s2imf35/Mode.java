@@ -0,0 +1,28 @@
+package s2imf35;
+
+/**
+ * The algorithms that can be used to solve a formula.
+ */
+public enum Mode {
+    NAIVE("Naive", "naive"),
+    EMERSON_LEI("Emerson-Lei", "emerson_lei"),
+    INCREMENTAL("Incremental", "incremental"),
+    COMPILED("Compiled", "compiled"),
+    ZIELONKA("Zielonka", "zielonka"),
+    PROGRESS_MEASURES("Small progress measures", "spm"),
+    LOCAL("Local", "local"),
+    PARALLEL("Parallel Emerson-Lei", "parallel"),
+    SYMBOLIC("Symbolic", "symbolic"),
+    SCC("SCC decomposition", "scc");
+
+    // The name of the algorithm, as displayed in the output.
+    public final String title;
+
+    // The name of the algorithm, as used in the names of the performance data files.
+    public final String abbreviation;
+
+    Mode(String title, String abbreviation) {
+        this.title = title;
+        this.abbreviation = abbreviation;
+    }
+}
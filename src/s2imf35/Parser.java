@@ -1,14 +1,17 @@
 package s2imf35;
 
+import s2imf35.graph.AldebaranReader;
+import s2imf35.graph.EdgeListLTS;
 import s2imf35.graph.LTS;
+import s2imf35.graph.LTSSnapshot;
+import s2imf35.graph.OffHeapLTS;
 import s2imf35.operator.AbstractComponent;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.stream.Collectors;
 
 /**
  * A class that parses the input files and converts them to the desired object type.
@@ -27,15 +30,67 @@ public class Parser {
     }
 
     /**
-     * Parse the given graph file and convert it to an edge list representation.
+     * Parse the given graph file and convert it to a compressed sparse row representation. If a snapshot of the graph
+     * exists with the same name, which is at least as new as the file itself, the snapshot is loaded instead.
      *
-     * @param path The location of the input file.
+     * @param path The location of the input file, in Aldebaran format or a snapshot.
      * @return A labelled transition system representing the graph defined in the input file.
      * @throws IOException If the file cannot be found or read.
      */
     public static LTS parseSystemFile(String path) throws IOException {
+        Path source = Paths.get(path), snapshot = Paths.get(path.replaceFirst("\\.aut$", "") + LTSSnapshot.EXTENSION);
+        if(Files.exists(snapshot) && (!Files.exists(source) ||
+                Files.getLastModifiedTime(snapshot).compareTo(Files.getLastModifiedTime(source)) >= 0)) {
+            return LTSSnapshot.read(snapshot);
+        }
+        return parseSystemFile(path, true);
+    }
+
+    /**
+     * Parse the given graph file and convert it to a labelled transition system whose transitions are stored outside of
+     * the Java heap. Snapshots are decoded directly into the off-heap arrays, and are preferred in the same way as in
+     * {@link #parseSystemFile(String)}. Files in Aldebaran format are parsed a batch of chunks at a time, and the
+     * transitions are streamed into the off-heap arrays, such that the heap never holds the whole graph.
+     *
+     * Without a storage file, the arrays are held in direct buffers, of which the total size is capped by the option
+     * -XX:MaxDirectMemorySize of the virtual machine. The cap defaults to the maximum heap size given by -Xmx, so a
+     * graph that does not fit in the heap needs either a storage file or a larger cap.
+     *
+     * @param path The location of the input file, in Aldebaran format or a snapshot.
+     * @param storage The file the transitions are mapped into, or null if they should be stored in direct buffers.
+     * @return A labelled transition system with off-heap storage representing the graph defined in the input file.
+     * @throws IOException If the file cannot be found or read, or the storage cannot be created.
+     */
+    public static OffHeapLTS parseSystemFileOffHeap(String path, Path storage) throws IOException {
+        Path source = Paths.get(path), snapshot = Paths.get(path.replaceFirst("\\.aut$", "") + LTSSnapshot.EXTENSION);
+        if(path.endsWith(LTSSnapshot.EXTENSION)) {
+            return LTSSnapshot.readOffHeap(source, storage);
+        } else if(Files.exists(snapshot) && (!Files.exists(source) ||
+                Files.getLastModifiedTime(snapshot).compareTo(Files.getLastModifiedTime(source)) >= 0)) {
+            return LTSSnapshot.readOffHeap(snapshot, storage);
+        }
+        return AldebaranReader.readOffHeap(source, storage);
+    }
+
+    /**
+     * Parse the given graph file and convert it to the desired labelled transition system representation.
+     *
+     * @param path The location of the input file.
+     * @param compressed Whether the transitions should be stored in the compressed sparse row format, instead of as
+     *                   a list of edge objects.
+     * @return A labelled transition system representing the graph defined in the input file.
+     * @throws IOException If the file cannot be found or read.
+     */
+    public static LTS parseSystemFile(String path, boolean compressed) throws IOException {
+        // The compressed representation is read directly from the bytes of the file.
+        if(compressed && path.endsWith(LTSSnapshot.EXTENSION)) {
+            return LTSSnapshot.read(Paths.get(path));
+        } else if(compressed) {
+            return AldebaranReader.read(Paths.get(path));
+        }
+
         String contents = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
-        return parseSystem(contents);
+        return new EdgeListLTS(contents);
     }
 
     /**
@@ -45,12 +100,7 @@ public class Parser {
      * @return A parse tree representing the formula given in the input string.
      */
     private static AbstractComponent parseFormula(String input) {
-        // Convert the string to lines.
-        String[] lines = input.split("\\r?\\n");
-
-        // Remove all lines starting with a comment.
-        input = Arrays.stream(lines).filter(e -> !e.startsWith("%")).collect(Collectors.joining());
-
+        // The parser skips the lines starting with a comment.
         AbstractComponent formula = AbstractComponent.parse(input);
 
         // Ensure that the open variable tags are set correctly.
@@ -59,14 +109,4 @@ public class Parser {
 
         return formula;
     }
-
-    /**
-     * Parse the given graph and convert it to a parse tree.
-     *
-     * @param input The graph represented by a string.
-     * @return A labelled transition system representing the formula given in the input string.
-     */
-    private static LTS parseSystem(String input) {
-        return new LTS(input);
-    }
 }
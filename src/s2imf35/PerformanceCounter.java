@@ -7,15 +7,41 @@ public class PerformanceCounter {
     // The number of iterations made when solving the mu and nu components.
     public int iterations = 0;
 
+    // The number of iterations made in all strongly connected components together by the decomposition solver.
+    public long componentIterations = 0;
+
     // The number of resets made by the Emerson-Lei Algorithm.
     public int resets = 0;
 
+    // The number of successful lifts made by the small progress measures algorithm.
+    public long lifts = 0;
+
     // The time the calculation took in milliseconds.
     public long duration = 0;
 
+    // The profile of the nodes of the parse tree, or null if the evaluation is not profiled.
+    public Profile profile = null;
+
+    // Whether the evaluation is split into fork/join tasks, which is only enabled by the parallel solver.
+    public boolean parallel = false;
+
+    /**
+     * Add the counts of another counter, which measured part of the same calculation, to this counter.
+     *
+     * @param other The counter whose counts should be added.
+     */
+    public void add(PerformanceCounter other) {
+        iterations += other.iterations;
+        componentIterations += other.componentIterations;
+        resets += other.resets;
+        lifts += other.lifts;
+    }
+
     @Override
     public String toString() {
         return  "i=" + iterations +
-                ", r=" + resets;
+                ", r=" + resets +
+                (lifts == 0 ? "" : ", l=" + lifts) +
+                (componentIterations == 0 ? "" : ", c=" + componentIterations);
     }
 }
@@ -0,0 +1,255 @@
+package s2imf35;
+
+import s2imf35.graph.StateSet;
+import s2imf35.operator.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A profile of the evaluation of a formula by the naive and Emerson-Lei algorithms, which records the costs of each
+ * node of the parse tree. Profiling is enabled by attaching a profile to the performance counter of an evaluation, and
+ * costs a single null check per node evaluation when no profile is attached.
+ *
+ * For every node, the profile holds the number of evaluations, the time spent in them including the time of the
+ * sub-formulae, and the sum of the sizes of the resulting sets of states. For a binder, the profile also holds the
+ * number of iterations of its fixpoint. The parser shares structurally identical sub-formulae, such that a shared node
+ * accumulates the costs of all its occurrences, and is reported at each of them.
+ */
+public class Profile {
+    // The measurements of each node of the parse tree that has been evaluated.
+    private final Map<AbstractComponent, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * The measurements of a single node of the parse tree.
+     */
+    public static class Entry {
+        // The number of times the node has been evaluated, including evaluations answered by its cache.
+        public long evaluations = 0;
+
+        // The time spent in the evaluations in nanoseconds, including the time spent in the sub-formulae.
+        public long nanoseconds = 0;
+
+        // The sum of the sizes of the sets of states returned by the evaluations.
+        public long states = 0;
+
+        // The number of iterations of the fixpoint, if the node is a binder.
+        public int iterations = 0;
+    }
+
+    /**
+     * Record an evaluation of the given node.
+     *
+     * @param component The node that has been evaluated.
+     * @param start The value of {@link System#nanoTime()} at the start of the evaluation.
+     * @param result The set of states in which the node holds.
+     */
+    public synchronized void record(AbstractComponent component, long start, StateSet result) {
+        Entry entry = get(component);
+        entry.evaluations++;
+        entry.nanoseconds += System.nanoTime() - start;
+        entry.states += result.size();
+    }
+
+    /**
+     * Record an iteration of the fixpoint of the given binder.
+     *
+     * @param binder The mu or nu component whose fixpoint has been iterated.
+     */
+    public synchronized void iteration(AbstractComponent binder) {
+        get(binder).iterations++;
+    }
+
+    /**
+     * Get the measurements of the given node.
+     *
+     * @param component The node of the parse tree.
+     * @return The measurements of the node, which are zero if the node has not been evaluated.
+     */
+    public synchronized Entry get(AbstractComponent component) {
+        return entries.computeIfAbsent(component, c -> new Entry());
+    }
+
+    /**
+     * Describe the profile as the parse tree of the formula, with the measurements of each node next to it.
+     *
+     * @param formula The root of the parse tree that has been evaluated.
+     * @return A table with one row per node, indented by the depth of the node.
+     */
+    public String toTree(AbstractComponent formula) {
+        StringBuilder builder = new StringBuilder(String.format("%-48s %12s %14s %16s %12s%n",
+                "Operator", "Evaluations", "Time (ms)", "States", "Iterations"));
+        appendTree(builder, formula, 0);
+        return builder.toString();
+    }
+
+    /**
+     * Describe the profile as comma separated values, with one row per node in depth first order. The parent column
+     * holds the row of the parent, or -1 for the root.
+     *
+     * @param formula The root of the parse tree that has been evaluated.
+     * @return The table, starting with a header row.
+     */
+    public String toCsv(AbstractComponent formula) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("row,parent,depth,operator,evaluations,nanoseconds,states,iterations\n");
+        appendCsv(builder, formula, -1, 0, new int[1]);
+        return builder.toString();
+    }
+
+    /**
+     * Describe the profile as a JSON object for the root, in which the sub-formulae are nested in the children arrays.
+     *
+     * @param formula The root of the parse tree that has been evaluated.
+     * @return The JSON representation of the profile.
+     */
+    public String toJson(AbstractComponent formula) {
+        StringBuilder builder = new StringBuilder();
+        appendJson(builder, formula);
+        return builder.append("\n").toString();
+    }
+
+    /**
+     * Write the profile to the given file, in JSON format if its name ends with .json, and as comma separated values
+     * otherwise.
+     *
+     * @param formula The root of the parse tree that has been evaluated.
+     * @param file The location of the file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void export(AbstractComponent formula, Path file) throws IOException {
+        String contents = file.toString().endsWith(".json") ? toJson(formula) : toCsv(formula);
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Append the rows of the given node and its sub-formulae to the table of {@link #toTree(AbstractComponent)}.
+     *
+     * @param builder The builder of the table.
+     * @param component The node of the parse tree.
+     * @param depth The depth of the node in the parse tree.
+     */
+    private void appendTree(StringBuilder builder, AbstractComponent component, int depth) {
+        Entry entry = get(component);
+        StringBuilder operator = new StringBuilder();
+        for(int i = 0; i < depth; i++) {
+            operator.append("  ");
+        }
+        operator.append(describe(component));
+        builder.append(String.format("%-48s %12d %14.3f %16d %12s%n", operator, entry.evaluations,
+                entry.nanoseconds / 1e6, entry.states, isBinder(component) ? entry.iterations : ""));
+
+        for(AbstractComponent child : children(component)) {
+            appendTree(builder, child, depth + 1);
+        }
+    }
+
+    /**
+     * Append the rows of the given node and its sub-formulae to the table of {@link #toCsv(AbstractComponent)}.
+     *
+     * @param builder The builder of the table.
+     * @param component The node of the parse tree.
+     * @param parent The row of the parent of the node, or -1 for the root.
+     * @param depth The depth of the node in the parse tree.
+     * @param rows The number of rows written so far, which is incremented for every row.
+     */
+    private void appendCsv(StringBuilder builder, AbstractComponent component, int parent, int depth, int[] rows) {
+        Entry entry = get(component);
+        int row = rows[0]++;
+        builder.append(row).append(',').append(parent).append(',').append(depth).append(',')
+                .append('"').append(describe(component).replace("\"", "\"\"")).append('"').append(',')
+                .append(entry.evaluations).append(',').append(entry.nanoseconds).append(',')
+                .append(entry.states).append(',').append(entry.iterations).append('\n');
+
+        for(AbstractComponent child : children(component)) {
+            appendCsv(builder, child, row, depth + 1, rows);
+        }
+    }
+
+    /**
+     * Append the JSON object of the given node, in which the objects of its sub-formulae are nested.
+     *
+     * @param builder The builder of the JSON representation.
+     * @param component The node of the parse tree.
+     */
+    private void appendJson(StringBuilder builder, AbstractComponent component) {
+        Entry entry = get(component);
+        builder.append("{\"operator\":\"").append(describe(component).replace("\\", "\\\\").replace("\"", "\\\""))
+                .append("\",\"evaluations\":").append(entry.evaluations)
+                .append(",\"nanoseconds\":").append(entry.nanoseconds)
+                .append(",\"states\":").append(entry.states);
+        if(isBinder(component)) {
+            builder.append(",\"iterations\":").append(entry.iterations);
+        }
+
+        builder.append(",\"children\":[");
+        AbstractComponent[] children = children(component);
+        for(int i = 0; i < children.length; i++) {
+            if(i > 0) {
+                builder.append(',');
+            }
+            appendJson(builder, children[i]);
+        }
+        builder.append("]}");
+    }
+
+    /**
+     * Describe the operator of the given node, without its sub-formulae.
+     *
+     * @param component The node of the parse tree.
+     * @return The symbol of the operator, along with its label or variable.
+     */
+    private static String describe(AbstractComponent component) {
+        if(component instanceof AndComponent) {
+            return "and";
+        } else if(component instanceof OrComponent) {
+            return "or";
+        } else if(component instanceof DiamondModalityComponent) {
+            return "<" + ((DiamondModalityComponent) component).label + ">";
+        } else if(component instanceof BoxModalityComponent) {
+            return "[" + ((BoxModalityComponent) component).label + "]";
+        } else if(component instanceof MuComponent) {
+            return "mu " + ((MuComponent) component).variable + ".";
+        } else if(component instanceof NuComponent) {
+            return "nu " + ((NuComponent) component).variable + ".";
+        }
+        return component.toLatex();
+    }
+
+    /**
+     * Get the sub-formulae of the given node.
+     *
+     * @param component The node of the parse tree.
+     * @return The operands of the node, in the order in which they occur in the formula.
+     */
+    private static AbstractComponent[] children(AbstractComponent component) {
+        if(component instanceof AndComponent) {
+            return new AbstractComponent[] {((AndComponent) component).lhs, ((AndComponent) component).rhs};
+        } else if(component instanceof OrComponent) {
+            return new AbstractComponent[] {((OrComponent) component).lhs, ((OrComponent) component).rhs};
+        } else if(component instanceof DiamondModalityComponent) {
+            return new AbstractComponent[] {((DiamondModalityComponent) component).rhs};
+        } else if(component instanceof BoxModalityComponent) {
+            return new AbstractComponent[] {((BoxModalityComponent) component).rhs};
+        } else if(component instanceof MuComponent) {
+            return new AbstractComponent[] {((MuComponent) component).rhs};
+        } else if(component instanceof NuComponent) {
+            return new AbstractComponent[] {((NuComponent) component).rhs};
+        }
+        return new AbstractComponent[0];
+    }
+
+    /**
+     * Check whether the given node binds a recursion variable.
+     *
+     * @param component The node of the parse tree.
+     * @return True if the node is a mu or nu component, false otherwise.
+     */
+    private static boolean isBinder(AbstractComponent component) {
+        return component instanceof MuComponent || component instanceof NuComponent;
+    }
+}
@@ -1,19 +1,20 @@
 package s2imf35;
 
+import s2imf35.graph.StateSet;
+
 import java.util.Arrays;
-import java.util.Set;
 
 /**
  * A class that holds all information we have about a solution.
  */
 public class Solution {
     // The states that have been marked as valid.
-    public final Set<Integer> states;
+    public final StateSet states;
 
     // The performance counter associated with the solution.
     public final PerformanceCounter counter;
 
-    public Solution(Set<Integer> states, PerformanceCounter counter) {
+    public Solution(StateSet states, PerformanceCounter counter) {
         this.states = states;
         this.counter = counter;
     }
@@ -21,7 +22,7 @@ public class Solution {
     @Override
     public String toString() {
         // Select only the first 20 states in the solution.
-        Object[] first50States = states.stream().limit(20).toArray();
+        int[] first50States = states.stream().limit(20).toArray();
         String list = Arrays.toString(first50States);
 
         if(states.size() != first50States.length) {
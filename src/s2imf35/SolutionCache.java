@@ -0,0 +1,300 @@
+package s2imf35;
+
+import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
+import s2imf35.operator.AbstractComponent;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A cache of solutions on disk, such that a formula does not have to be solved again on a graph it has been solved on
+ * in an earlier run. The solutions are addressed by the SHA-256 hash of the version of the solvers, the transitions of
+ * the graph, the algorithm and the LaTeX representation of the formula, so a changed input file never hits an outdated
+ * solution. The version of the solvers has to be incremented by hand whenever an algorithm changes.
+ *
+ * Each solution is stored in its own file, which holds the performance counter of the original evaluation and the
+ * runs of consecutive valid states, compressed with deflate. A hit touches the modification time of its file, and the
+ * files that were used least recently are deleted once the files together exceed the size budget.
+ */
+public class SolutionCache {
+    // The file extension of stored solutions.
+    private static final String EXTENSION = ".sol";
+
+    // The version of the format of the stored solutions.
+    private static final int VERSION = 2;
+
+    // The version of the solvers, which is part of the address of every solution. It must be incremented whenever a
+    // change to any of the algorithms may change their solutions or counters, such that older solutions are not used.
+    private static final int ENGINE = 1;
+
+    // The directory the solutions are stored in.
+    private final Path directory;
+
+    // The maximum number of bytes taken by the stored solutions.
+    private final long budget;
+
+    // The hash of each graph that has been hashed, such that a graph is only hashed once.
+    private final Map<LTS, String> graphHashes = new WeakHashMap<>();
+
+    /**
+     * Create a cache that stores its solutions in the given directory.
+     *
+     * @param directory The directory of the cache, which is created if it does not exist.
+     * @param budget The maximum number of bytes taken by the stored solutions.
+     * @throws IOException If the directory cannot be created.
+     */
+    public SolutionCache(Path directory, long budget) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.budget = budget;
+    }
+
+    /**
+     * Solve the given formula with the algorithm corresponding to the given mode, or load the solution if it has been
+     * stored before. The performance counter of a loaded solution is the counter of the original evaluation.
+     *
+     * @param mode The algorithm that should be used.
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @return The set of states in the graph for which the formula holds.
+     * @throws IOException If the solution cannot be stored.
+     */
+    public Solution solve(Mode mode, AbstractComponent formula, LTS graph) throws IOException {
+        Path file = directory.resolve(hash(ENGINE + "\n" + hashGraph(graph) + "\n" + mode.name() + "\n" +
+                formula.toLatex()) + EXTENSION);
+
+        Solution solution = load(file, graph);
+        if(solution != null) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return solution;
+        }
+
+        solution = Solver.solve(mode, formula, graph);
+        store(file, solution, graph);
+        evict();
+        return solution;
+    }
+
+    /**
+     * Load the solution in the given file.
+     *
+     * @param file The location of the solution.
+     * @param graph The graph the solution was computed on.
+     * @return The solution, or null if the file does not exist or cannot be read.
+     */
+    private Solution load(Path file, LTS graph) {
+        try(DataInputStream in = new DataInputStream(new InflaterInputStream(new BufferedInputStream(
+                Files.newInputStream(file))))) {
+            if(in.readInt() != VERSION || in.readInt() != graph.numberOfStates) {
+                return null;
+            }
+
+            PerformanceCounter counter = new PerformanceCounter();
+            counter.iterations = in.readInt();
+            counter.resets = in.readInt();
+            counter.lifts = in.readLong();
+            counter.componentIterations = in.readLong();
+            counter.duration = in.readLong();
+
+            // Every run is stored as the gap since the end of the previous run, followed by its length.
+            StateSet states = graph.emptySet();
+            for(int i = 0, runs = in.readInt(), state = 0; i < runs; i++) {
+                state += in.readInt();
+                for(int end = state + in.readInt(); state < end; state++) {
+                    states.add(state);
+                }
+            }
+            return new Solution(states, counter);
+        } catch(IOException | IndexOutOfBoundsException e) {
+            // A missing, truncated or corrupted file is a miss, and is overwritten by the new solution.
+            return null;
+        }
+    }
+
+    /**
+     * Store the given solution in the given file. The solution is written to a temporary file first, such that a
+     * concurrent or interrupted run never observes a partially written solution.
+     *
+     * @param file The location of the solution.
+     * @param solution The solution to store.
+     * @param graph The graph the solution was computed on.
+     * @throws IOException If the file cannot be written.
+     */
+    private void store(Path file, Solution solution, LTS graph) throws IOException {
+        // Collect the runs of consecutive states in the solution.
+        List<int[]> runs = new ArrayList<>();
+        StateSet states = solution.states;
+        for(int state = states.nextState(0); state != -1; ) {
+            int end = state;
+            while(end + 1 < graph.numberOfStates && states.contains(end + 1)) {
+                end++;
+            }
+            runs.add(new int[] {state, end + 1});
+            state = states.nextState(end + 1);
+        }
+
+        Path temporary = Files.createTempFile(directory, "solution", ".tmp");
+        try {
+            try(DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporary))))) {
+                out.writeInt(VERSION);
+                out.writeInt(graph.numberOfStates);
+                out.writeInt(solution.counter.iterations);
+                out.writeInt(solution.counter.resets);
+                out.writeLong(solution.counter.lifts);
+                out.writeLong(solution.counter.componentIterations);
+                out.writeLong(solution.counter.duration);
+                out.writeInt(runs.size());
+                int previous = 0;
+                for(int[] run : runs) {
+                    out.writeInt(run[0] - previous);
+                    out.writeInt(run[1] - run[0]);
+                    previous = run[1];
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Delete the least recently used solutions until the stored solutions fit in the budget.
+     *
+     * @throws IOException If the directory cannot be listed.
+     */
+    private void evict() throws IOException {
+        List<Path> files;
+        try(Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(p -> p.toString().endsWith(EXTENSION)).collect(Collectors.toList());
+        }
+
+        Map<Path, Long> sizes = new HashMap<>();
+        Map<Path, FileTime> times = new HashMap<>();
+        long total = 0;
+        for(Path file : files) {
+            try {
+                sizes.put(file, Files.size(file));
+                times.put(file, Files.getLastModifiedTime(file));
+                total += sizes.get(file);
+            } catch(NoSuchFileException e) {
+                // The file has been evicted by a concurrent run.
+            }
+        }
+
+        List<Path> order = new ArrayList<>(sizes.keySet());
+        order.sort(Comparator.comparing(times::get));
+        for(Iterator<Path> iterator = order.iterator(); total > budget && iterator.hasNext(); ) {
+            Path file = iterator.next();
+            Files.deleteIfExists(file);
+            total -= sizes.get(file);
+        }
+    }
+
+    /**
+     * Get the hash of the contents of the given graph, and compute it if the graph has not been hashed before.
+     *
+     * @param graph The graph.
+     * @return The hexadecimal SHA-256 hash of the initial state, the labels and the stored transitions of the graph,
+     * which are read without building the indices of the labels.
+     */
+    private synchronized String hashGraph(LTS graph) {
+        String hash = graphHashes.get(graph);
+        if(hash == null) {
+            MessageDigest digest = newDigest();
+            DigestWriter out = new DigestWriter(digest);
+            out.writeInt(graph.firstState);
+            out.writeInt(graph.numberOfStates);
+            for(String label : graph.getLabels()) {
+                byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.flush();
+                digest.update(bytes);
+            }
+            out.writeInt(graph.numberOfLabels());
+            graph.forEachTransition((start, label, end) -> {
+                out.writeInt(start);
+                out.writeInt(label);
+                out.writeInt(end);
+            });
+            out.flush();
+            hash = toHex(digest.digest());
+            graphHashes.put(graph, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Compute the hexadecimal SHA-256 hash of the given text.
+     *
+     * @param text The text to hash.
+     * @return The hash of the UTF-8 encoding of the text.
+     */
+    private static String hash(String text) {
+        return toHex(newDigest().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Create a new SHA-256 digest.
+     *
+     * @return The digest.
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch(NoSuchAlgorithmException e) {
+            throw new RuntimeException("The SHA-256 algorithm is not available.", e);
+        }
+    }
+
+    /**
+     * Convert the given bytes to a string of hexadecimal digits.
+     *
+     * @param bytes The bytes to convert.
+     * @return The hexadecimal representation, two digits per byte.
+     */
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(2 * bytes.length);
+        for(byte b : bytes) {
+            builder.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A buffer that feeds integers to a digest in blocks, since updating a digest byte by byte is slow.
+     */
+    private static class DigestWriter {
+        private final MessageDigest digest;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position = 0;
+
+        DigestWriter(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        void writeInt(int value) {
+            if(position + 4 > buffer.length) {
+                flush();
+            }
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        void flush() {
+            digest.update(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
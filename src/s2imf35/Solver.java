@@ -1,15 +1,82 @@
 package s2imf35;
 
+import s2imf35.compiler.FormulaCompiler;
+import s2imf35.decomposition.SCCSolver;
+import s2imf35.game.GameBuilder;
+import s2imf35.game.LocalSolver;
+import s2imf35.game.ParityGame;
+import s2imf35.game.ProgressMeasureSolver;
+import s2imf35.game.ZielonkaSolver;
 import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
+import s2imf35.incremental.IncrementalSolver;
 import s2imf35.operator.AbstractComponent;
 import s2imf35.operator.MuComponent;
 import s2imf35.operator.NuComponent;
+import s2imf35.symbolic.SymbolicSolver;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class Solver {
+    /**
+     * Solve the given formula with the algorithm corresponding to the given mode, using the given graph.
+     *
+     * @param mode The algorithm that should be used.
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    public static Solution solve(Mode mode, AbstractComponent formula, LTS graph) {
+        return solve(mode, formula, graph, null);
+    }
+
+    /**
+     * Solve the given formula with the algorithm corresponding to the given mode, using the given graph, and record
+     * the costs of the nodes of the formula in the given profile. Only the naive, Emerson-Lei and parallel Emerson-Lei
+     * algorithms evaluate the parse tree directly, and can therefore be profiled.
+     *
+     * @param mode The algorithm that should be used.
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @param profile The profile of the evaluation, or null if the evaluation should not be profiled.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    public static Solution solve(Mode mode, AbstractComponent formula, LTS graph, Profile profile) {
+        if(profile != null && mode != Mode.NAIVE && mode != Mode.EMERSON_LEI && mode != Mode.PARALLEL) {
+            throw new RuntimeException("The " + mode.title + " algorithm does not support profiling.");
+        }
+
+        switch(mode) {
+            case NAIVE:
+                return solveNaive(formula, graph, profile);
+            case EMERSON_LEI:
+                return solveEmersonLei(formula, graph, profile);
+            case INCREMENTAL:
+                return solveIncremental(formula, graph);
+            case COMPILED:
+                return solveCompiled(formula, graph);
+            case ZIELONKA:
+                return solveZielonka(formula, graph);
+            case PROGRESS_MEASURES:
+                return solveProgressMeasures(formula, graph);
+            case LOCAL:
+                return solveLocal(formula, graph);
+            case PARALLEL:
+                return solveParallel(formula, graph, Runtime.getRuntime().availableProcessors(), profile);
+            case SYMBOLIC:
+                return solveSymbolic(formula, graph);
+            case SCC:
+                return solveSCC(formula, graph);
+            default:
+                throw new RuntimeException("Unknown mode " + mode + ".");
+        }
+    }
+
     /**
      * Solve the given formula naively, using the given graph.
      *
@@ -18,15 +85,33 @@ public class Solver {
      * @return The set of states in the graph for which the formula holds.
      */
     public static Solution solveNaive(AbstractComponent formula, LTS graph) {
+        return solveNaive(formula, graph, null);
+    }
+
+    /**
+     * Solve the given formula naively, using the given graph, and record the costs of the nodes of the formula.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @param profile The profile of the evaluation, or null if the evaluation should not be profiled.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    public static Solution solveNaive(AbstractComponent formula, LTS graph, Profile profile) {
         // Create our data structure A.
-        Map<String, Set<Integer>> A = new HashMap<>();
+        Map<String, StateSet> A = new HashMap<>();
 
         // Create a performance counter.
         PerformanceCounter counter = new PerformanceCounter();
+        counter.profile = profile;
         Instant start = Instant.now();
 
         // Call the solver and report.
-        Set<Integer> matches = formula.naive(graph, A, counter);
+        StateSet matches;
+        try {
+            matches = formula.naive(graph, A, counter);
+        } finally {
+            formula.releaseCaches();
+        }
         Instant finish = Instant.now();
         counter.duration = Duration.between(start, finish).toMillis();
 
@@ -41,11 +126,74 @@ public class Solver {
      * @return The set of states in the graph for which the formula holds.
      */
     public static Solution solveEmersonLei(AbstractComponent formula, LTS graph) {
-        // Create our data structure A.
-        Map<String, Set<Integer>> A = new HashMap<>();
+        return solveEmersonLei(formula, graph, (Profile) null);
+    }
 
+    /**
+     * Solve the given formula with the Emerson-Lei Algorithm, using the given graph, and record the costs of the nodes
+     * of the formula.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @param profile The profile of the evaluation, or null if the evaluation should not be profiled.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    public static Solution solveEmersonLei(AbstractComponent formula, LTS graph, Profile profile) {
+        return solveEmersonLei(formula, graph, new HashMap<>(), profile, false);
+    }
+
+    /**
+     * Solve the given formula with the Emerson-Lei Algorithm in a fork/join pool, using the given graph. The operands of
+     * conjunctions and disjunctions and the sweeps of the modalities are split into tasks, with the same result as the
+     * sequential evaluation.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @param parallelism The number of threads that evaluate the formula.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    public static Solution solveParallel(AbstractComponent formula, LTS graph, int parallelism) {
+        return solveParallel(formula, graph, parallelism, null);
+    }
+
+    /**
+     * Solve the given formula with the Emerson-Lei Algorithm in a fork/join pool, using the given graph, and record
+     * the costs of the nodes of the formula. The time of a node is the sum of the times of all threads that evaluated
+     * it.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @param parallelism The number of threads that evaluate the formula.
+     * @param profile The profile of the evaluation, or null if the evaluation should not be profiled.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    public static Solution solveParallel(AbstractComponent formula, LTS graph, int parallelism, Profile profile) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // The approximations are read by tasks while other tasks update the approximations of their own variables.
+            return pool.invoke(ForkJoinTask.adapt(() -> solveEmersonLei(formula, graph, new ConcurrentHashMap<>(),
+                    profile, parallelism > 1)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Solve the given formula with the Emerson-Lei Algorithm, using the given graph and data structure.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @param A An empty mapping in which the approximations of the recursion variables are stored.
+     * @param profile The profile of the evaluation, or null if the evaluation should not be profiled.
+     * @param parallel Whether the evaluation should be split into tasks of the fork/join pool it runs in.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    private static Solution solveEmersonLei(AbstractComponent formula, LTS graph, Map<String, StateSet> A,
+                                            Profile profile, boolean parallel) {
         // Create a performance counter.
         PerformanceCounter counter = new PerformanceCounter();
+        counter.profile = profile;
+        counter.parallel = parallel;
         Instant start = Instant.now();
 
         // Find all recursion variables and their bindings.
@@ -55,7 +203,7 @@ public class Solver {
         for(AbstractComponent c : bindings) {
             if(c instanceof MuComponent) {
                 MuComponent mu = (MuComponent) c;
-                A.put(mu.variable, new HashSet<>());
+                A.put(mu.variable, graph.emptySet());
             } else if(c instanceof NuComponent) {
                 NuComponent nu = (NuComponent) c;
                 A.put(nu.variable, graph.S());
@@ -65,11 +213,199 @@ public class Solver {
         }
 
         // Call the solver and report.
-        Set<Integer> matches = formula.emersonLei(graph, A, null, counter);
+        StateSet matches;
+        try {
+            matches = formula.emersonLei(graph, A, null, counter);
+        } finally {
+            // The formula may be reused for other graphs, which should not keep this graph reachable.
+            formula.releaseCaches();
+        }
         Instant finish = Instant.now();
         counter.duration = Duration.between(start, finish).toMillis();
 
         // Call the solver.
         return new Solution(matches, counter);
     }
+
+    /**
+     * Solve the given formula incrementally, by propagating the changes of the fixpoint approximations.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    public static Solution solveIncremental(AbstractComponent formula, LTS graph) {
+        // Create a performance counter.
+        PerformanceCounter counter = new PerformanceCounter();
+        Instant start = Instant.now();
+
+        // Call the solver and report.
+        StateSet matches = new IncrementalSolver(graph, counter).solve(formula);
+        Instant finish = Instant.now();
+        counter.duration = Duration.between(start, finish).toMillis();
+
+        return new Solution(matches, counter);
+    }
+
+    /**
+     * Solve the given formula with the Emerson-Lei Algorithm, by compiling it to a program for the given graph.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    public static Solution solveCompiled(AbstractComponent formula, LTS graph) {
+        // Create a performance counter.
+        PerformanceCounter counter = new PerformanceCounter();
+        Instant start = Instant.now();
+
+        // Compile the formula, run the program and report.
+        StateSet matches = FormulaCompiler.compile(formula, graph).execute(counter);
+        Instant finish = Instant.now();
+        counter.duration = Duration.between(start, finish).toMillis();
+
+        return new Solution(matches, counter);
+    }
+
+    /**
+     * Solve the given formula by reducing it to a parity game, which is solved with Zielonka's recursive algorithm.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    public static Solution solveZielonka(AbstractComponent formula, LTS graph) {
+        // Create a performance counter.
+        PerformanceCounter counter = new PerformanceCounter();
+        Instant start = Instant.now();
+
+        // Build and solve the game, and report.
+        ParityGame game = GameBuilder.build(formula, graph);
+        StateSet won = new ZielonkaSolver(game, counter).solve();
+        StateSet matches = statesWon(won, graph);
+        Instant finish = Instant.now();
+        counter.duration = Duration.between(start, finish).toMillis();
+
+        return new Solution(matches, counter);
+    }
+
+    /**
+     * Solve the given formula by reducing it to a parity game, which is solved with the small progress measures
+     * algorithm. Unlike Zielonka's algorithm, the work does not grow exponentially with the alternation depth through
+     * recursion, but with the number of vertices of each odd priority.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    public static Solution solveProgressMeasures(AbstractComponent formula, LTS graph) {
+        // Create a performance counter.
+        PerformanceCounter counter = new PerformanceCounter();
+        Instant start = Instant.now();
+
+        // Build and solve the game, and report.
+        ParityGame game = GameBuilder.build(formula, graph);
+        StateSet won = new ProgressMeasureSolver(game, counter).solve();
+        StateSet matches = statesWon(won, graph);
+        Instant finish = Instant.now();
+        counter.duration = Duration.between(start, finish).toMillis();
+
+        return new Solution(matches, counter);
+    }
+
+    /**
+     * Solve the given formula for the initial state of the graph only, by exploring the parity game on demand from the
+     * vertex of the initial state. The resulting set contains the initial state if the formula holds in it, and no
+     * other states.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @return The set of states in the graph for which the formula holds, restricted to the initial state.
+     */
+    public static Solution solveLocal(AbstractComponent formula, LTS graph) {
+        // Create a performance counter.
+        PerformanceCounter counter = new PerformanceCounter();
+        Instant start = Instant.now();
+
+        // Explore and solve the game from the initial state, and report.
+        StateSet matches = graph.emptySet();
+        if(new LocalSolver(formula, graph, counter).solve()) {
+            matches.add(graph.firstState);
+        }
+        Instant finish = Instant.now();
+        counter.duration = Duration.between(start, finish).toMillis();
+
+        return new Solution(matches, counter);
+    }
+
+    /**
+     * Solve the given formula with the Emerson-Lei Algorithm on sets of states represented by binary decision diagrams.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    public static Solution solveSymbolic(AbstractComponent formula, LTS graph) {
+        // Create a performance counter.
+        PerformanceCounter counter = new PerformanceCounter();
+        Instant start = Instant.now();
+
+        // Encode the graph, evaluate the formula symbolically and report.
+        StateSet matches = new SymbolicSolver(graph, counter).solve(formula);
+        Instant finish = Instant.now();
+        counter.duration = Duration.between(start, finish).toMillis();
+
+        return new Solution(matches, counter);
+    }
+
+    /**
+     * Solve the given formula with the Emerson-Lei Algorithm, one strongly connected component of the graph at a time,
+     * or on the whole graph if a single component holds more than a quarter of the states.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph that has to be used in the evaluation.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    public static Solution solveSCC(AbstractComponent formula, LTS graph) {
+        // Create a performance counter.
+        PerformanceCounter counter = new PerformanceCounter();
+        Instant start = Instant.now();
+
+        // Decompose the graph, and solve the components bottom up if there are enough of them.
+        SCCSolver solver = new SCCSolver(graph, counter);
+        StateSet matches;
+        if(solver.decompose(formula)) {
+            matches = solver.solve();
+        } else {
+            Solution solution = solveEmersonLei(formula, graph);
+            counter.add(solution.counter);
+            matches = solution.states;
+        }
+
+        // Report.
+        Instant finish = Instant.now();
+        counter.duration = Duration.between(start, finish).toMillis();
+
+        return new Solution(matches, counter);
+    }
+
+    /**
+     * Find the states of the graph in which the formula holds, given the winning region of player even in the game
+     * built by the GameBuilder.
+     *
+     * @param won The vertices from which player even wins the game.
+     * @param graph The graph that has to be used in the evaluation.
+     * @return The set of states in the graph for which the formula holds.
+     */
+    private static StateSet statesWon(StateSet won, LTS graph) {
+        // The vertex of state s and the full formula is s itself.
+        StateSet matches = graph.emptySet();
+        for(int state = won.nextState(0); state != -1; state = won.nextState(state + 1)) {
+            if(state >= graph.numberOfStates) {
+                break;
+            }
+            matches.add(state);
+        }
+        return matches;
+    }
 }
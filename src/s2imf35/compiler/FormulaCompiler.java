@@ -0,0 +1,221 @@
+package s2imf35.compiler;
+
+import s2imf35.graph.LTS;
+import s2imf35.operator.*;
+
+import java.util.*;
+
+/**
+ * A compiler that converts the parse tree of a formula to a program, which evaluates the formula on a specific graph
+ * using the Emerson-Lei algorithm. Recursion variables are resolved to slots and labels to label ids at compile time,
+ * and the resets of Emerson-Lei, which only depend on the structure of the formula, become explicit instructions.
+ */
+public class FormulaCompiler {
+    // The graph the program is compiled for.
+    private final LTS graph;
+
+    // The instructions emitted so far.
+    private int[] code = new int[16 * Program.INSTRUCTION_SIZE];
+    private int size = 0;
+
+    // The number of registers allocated so far.
+    private int registers = 0;
+
+    // For each slot, whether the recursion variable is bound by a nu operator.
+    private final List<Boolean> greatest = new ArrayList<>();
+
+    // For each slot, whether its binder has free recursion variables.
+    private final List<Boolean> open = new ArrayList<>();
+
+    // For each slot, the slot after those of the binders nested in its binder. Shared sub-formulae are compiled once
+    // for every occurrence, so slots are assigned to the occurrences of the binders in the order in which they occur.
+    private final List<Integer> end = new ArrayList<>();
+
+    // The number of slots that have been used by emitted binders.
+    private int emitted = 0;
+
+    /**
+     * Create a compiler for the given graph.
+     *
+     * @param graph The graph the program should be bound to.
+     */
+    private FormulaCompiler(LTS graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Compile the given formula to a program that evaluates the formula on the given graph.
+     *
+     * @param formula The formula that has to be compiled.
+     * @param graph The graph the formula will be evaluated on.
+     * @return A program evaluating the formula.
+     */
+    public static Program compile(AbstractComponent formula, LTS graph) {
+        FormulaCompiler compiler = new FormulaCompiler(graph);
+        compiler.resolve(formula, new HashMap<>());
+        int result = compiler.emit(formula, null, new HashMap<>());
+
+        boolean[] greatest = new boolean[compiler.greatest.size()];
+        for(int i = 0; i < greatest.length; i++) {
+            greatest[i] = compiler.greatest.get(i);
+        }
+        return new Program(graph, Arrays.copyOf(compiler.code, compiler.size), compiler.registers, greatest, result);
+    }
+
+    /**
+     * Assign a slot to each occurrence of a binder, check that the recursion variables are bound and find the binders
+     * that are open.
+     *
+     * @param component The sub-formula to resolve.
+     * @param scope The slots of the variables that are bound at the location of the sub-formula.
+     * @return The slots of the free variables of the sub-formula.
+     */
+    private Set<Integer> resolve(AbstractComponent component, Map<String, Integer> scope) {
+        if(component instanceof RecursionVariableComponent) {
+            Integer slot = scope.get(((RecursionVariableComponent) component).name);
+            if(slot == null) {
+                throw new RuntimeException("The recursion variable \"" + component.toLatex() + "\" is not bound.");
+            }
+            return new HashSet<>(Collections.singleton(slot));
+        } else if(component instanceof MuComponent || component instanceof NuComponent) {
+            String variable = component instanceof MuComponent ?
+                    ((MuComponent) component).variable : ((NuComponent) component).variable;
+            int slot = greatest.size();
+            greatest.add(component instanceof NuComponent);
+            open.add(false);
+            end.add(slot);
+
+            // Bind the variable while resolving the body, and restore the shadowed binding afterwards.
+            Integer shadowed = scope.put(variable, slot);
+            Set<Integer> free = resolve(body(component), scope);
+            if(shadowed == null) {
+                scope.remove(variable);
+            } else {
+                scope.put(variable, shadowed);
+            }
+
+            free.remove(slot);
+            open.set(slot, !free.isEmpty());
+            end.set(slot, greatest.size());
+            return free;
+        }
+
+        Set<Integer> free = new HashSet<>();
+        for(AbstractComponent child : children(component)) {
+            free.addAll(resolve(child, scope));
+        }
+        return free;
+    }
+
+    /**
+     * Emit the instructions that evaluate the given sub-formula.
+     *
+     * @param component The sub-formula to compile.
+     * @param lastBinder The closest binder that encloses the sub-formula, null if there is none.
+     * @param scope The slots of the variables that are bound at the location of the sub-formula.
+     * @return The register that holds the evaluation of the sub-formula.
+     */
+    private int emit(AbstractComponent component, AbstractComponent lastBinder, Map<String, Integer> scope) {
+        if(component instanceof TrueComponent) {
+            return emit(Program.TRUE, registers++, 0, 0);
+        } else if(component instanceof FalseComponent) {
+            return emit(Program.FALSE, registers++, 0, 0);
+        } else if(component instanceof RecursionVariableComponent) {
+            return emit(Program.LOAD, registers++, scope.get(((RecursionVariableComponent) component).name), 0);
+        } else if(component instanceof AndComponent) {
+            AndComponent and = (AndComponent) component;
+            int lhs = emit(and.lhs, lastBinder, scope);
+            int rhs = emit(and.rhs, lastBinder, scope);
+            return emit(Program.AND, registers++, lhs, rhs);
+        } else if(component instanceof OrComponent) {
+            OrComponent or = (OrComponent) component;
+            int lhs = emit(or.lhs, lastBinder, scope);
+            int rhs = emit(or.rhs, lastBinder, scope);
+            return emit(Program.OR, registers++, lhs, rhs);
+        } else if(component instanceof DiamondModalityComponent) {
+            DiamondModalityComponent diamond = (DiamondModalityComponent) component;
+            int operand = emit(diamond.rhs, lastBinder, scope);
+            return emit(Program.DIAMOND, registers++, operand, graph.getLabelId(diamond.label));
+        } else if(component instanceof BoxModalityComponent) {
+            BoxModalityComponent box = (BoxModalityComponent) component;
+            int operand = emit(box.rhs, lastBinder, scope);
+            return emit(Program.BOX, registers++, operand, graph.getLabelId(box.label));
+        }
+
+        // Is the surrounding binder a different sign? Then reset the open sub-formulae with the same sign.
+        int slot = emitted++;
+        boolean mu = component instanceof MuComponent;
+        if(lastBinder != null && (lastBinder instanceof MuComponent) != mu) {
+            for(int binder = slot; binder < end.get(slot); binder++) {
+                if(open.get(binder) && greatest.get(binder) != mu) {
+                    emit(mu ? Program.CLEAR : Program.FILL, binder, 0, 0);
+                }
+            }
+        }
+
+        // Evaluate the body until the approximation remains unchanged.
+        String variable = mu ? ((MuComponent) component).variable : ((NuComponent) component).variable;
+        Integer shadowed = scope.put(variable, slot);
+        int start = size;
+        int result = emit(body(component), component, scope);
+        emit(Program.FIX, slot, result, start);
+        if(shadowed == null) {
+            scope.remove(variable);
+        } else {
+            scope.put(variable, shadowed);
+        }
+        return result;
+    }
+
+    /**
+     * Emit a single instruction.
+     *
+     * @param opcode The opcode of the instruction.
+     * @param x The first operand.
+     * @param y The second operand.
+     * @param z The third operand.
+     * @return The first operand.
+     */
+    private int emit(int opcode, int x, int y, int z) {
+        if(size == code.length) {
+            code = Arrays.copyOf(code, 2 * code.length);
+        }
+        code[size] = opcode;
+        code[size + 1] = x;
+        code[size + 2] = y;
+        code[size + 3] = z;
+        size += Program.INSTRUCTION_SIZE;
+        return x;
+    }
+
+    /**
+     * Get the body of the given binder.
+     *
+     * @param binder A mu or nu component.
+     * @return The sub-formula over which the binder is defined.
+     */
+    private static AbstractComponent body(AbstractComponent binder) {
+        return binder instanceof MuComponent ? ((MuComponent) binder).rhs : ((NuComponent) binder).rhs;
+    }
+
+    /**
+     * Get the direct sub-formulae of the given formula.
+     *
+     * @param component The formula.
+     * @return The operands of the formula, in order.
+     */
+    private static List<AbstractComponent> children(AbstractComponent component) {
+        if(component instanceof AndComponent) {
+            return Arrays.asList(((AndComponent) component).lhs, ((AndComponent) component).rhs);
+        } else if(component instanceof OrComponent) {
+            return Arrays.asList(((OrComponent) component).lhs, ((OrComponent) component).rhs);
+        } else if(component instanceof DiamondModalityComponent) {
+            return Collections.singletonList(((DiamondModalityComponent) component).rhs);
+        } else if(component instanceof BoxModalityComponent) {
+            return Collections.singletonList(((BoxModalityComponent) component).rhs);
+        } else if(component instanceof MuComponent || component instanceof NuComponent) {
+            return Collections.singletonList(body(component));
+        }
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,210 @@
+package s2imf35.compiler;
+
+import s2imf35.PerformanceCounter;
+import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
+
+/**
+ * A formula compiled to a linear sequence of register based instructions, bound to a specific graph. Each instruction
+ * occupies INSTRUCTION_SIZE consecutive integers in the code array: an opcode followed by three operands. Sub-formulae
+ * write their evaluation to a register, recursion variables are stored in numbered slots and modalities refer to the
+ * id of their label, such that the program can be executed without any dispatch on the parse tree or lookups by name.
+ *
+ * The sets stored in the registers and slots are never altered once they have been produced, which allows them to be
+ * shared between registers and slots without copying.
+ */
+public class Program {
+    // The opcodes of the instructions, with their operands.
+    static final int TRUE = 0;      // TRUE register: the set of all states.
+    static final int FALSE = 1;     // FALSE register: the empty set.
+    static final int LOAD = 2;      // LOAD register slot: the approximation of a recursion variable.
+    static final int AND = 3;       // AND register lhs rhs: the intersection of two registers.
+    static final int OR = 4;        // OR register lhs rhs: the union of two registers.
+    static final int DIAMOND = 5;   // DIAMOND register operand label: the states with a transition into the operand.
+    static final int BOX = 6;       // BOX register operand label: the states with all transitions into the operand.
+    static final int CLEAR = 7;     // CLEAR slot: reset the approximation of a mu variable.
+    static final int FILL = 8;      // FILL slot: reset the approximation of a nu variable.
+    static final int FIX = 9;       // FIX slot operand target: store the operand, jump to the target if it changed.
+
+    // The number of integers used by a single instruction.
+    static final int INSTRUCTION_SIZE = 4;
+
+    // The names of the opcodes, used when printing the program.
+    private static final String[] NAMES = {"TRUE", "FALSE", "LOAD", "AND", "OR", "DIAMOND", "BOX", "CLEAR", "FILL", "FIX"};
+
+    // The graph the program is bound to.
+    private final LTS graph;
+
+    // The instructions of the program.
+    private final int[] code;
+
+    // The number of registers used by the program.
+    private final int registers;
+
+    // For each slot, whether the recursion variable is bound by a nu operator.
+    private final boolean[] greatest;
+
+    // The register that holds the evaluation of the formula once the program terminates.
+    private final int result;
+
+    /**
+     * Create a program with the given instructions.
+     *
+     * @param graph The graph the program is bound to.
+     * @param code The instructions of the program.
+     * @param registers The number of registers used by the program.
+     * @param greatest For each slot, whether the recursion variable is bound by a nu operator.
+     * @param result The register that holds the evaluation of the formula.
+     */
+    Program(LTS graph, int[] code, int registers, boolean[] greatest, int result) {
+        this.graph = graph;
+        this.code = code;
+        this.registers = registers;
+        this.greatest = greatest;
+        this.result = result;
+    }
+
+    /**
+     * Execute the program, starting with the approximations of the recursion variables used by Emerson-Lei.
+     *
+     * @param counter A performance counter that measures the performance of the program.
+     * @return The set of states in which the formula holds.
+     */
+    public StateSet execute(PerformanceCounter counter) {
+        StateSet[] register = new StateSet[registers];
+        StateSet[] slot = new StateSet[greatest.length];
+
+        // The constants are shared, as the sets are never altered.
+        StateSet all = graph.S();
+        StateSet none = graph.emptySet();
+        for(int i = 0; i < slot.length; i++) {
+            slot[i] = greatest[i] ? all : none;
+        }
+
+        int[] code = this.code;
+        for(int pc = 0; pc < code.length; pc += INSTRUCTION_SIZE) {
+            int x = code[pc + 1], y = code[pc + 2], z = code[pc + 3];
+            switch(code[pc]) {
+                case TRUE:
+                    register[x] = all;
+                    break;
+                case FALSE:
+                    register[x] = none;
+                    break;
+                case LOAD:
+                    register[x] = slot[y];
+                    break;
+                case AND:
+                    StateSet intersection = register[y].copy();
+                    intersection.retainAll(register[z]);
+                    register[x] = intersection;
+                    break;
+                case OR:
+                    StateSet union = register[y].copy();
+                    union.addAll(register[z]);
+                    register[x] = union;
+                    break;
+                case DIAMOND:
+                    register[x] = z == -1 ? none : diamond(register[y], z);
+                    break;
+                case BOX:
+                    register[x] = z == -1 ? all : box(register[y], z);
+                    break;
+                case CLEAR:
+                    slot[x] = none;
+                    counter.resets++;
+                    break;
+                case FILL:
+                    slot[x] = all;
+                    counter.resets++;
+                    break;
+                case FIX:
+                    StateSet value = register[y];
+                    boolean changed = !value.equals(slot[x]);
+                    slot[x] = value;
+                    counter.iterations++;
+                    if(changed) {
+                        pc = z - INSTRUCTION_SIZE;
+                    }
+                    break;
+                default:
+                    throw new RuntimeException("Invalid opcode " + code[pc] + " at " + pc + ".");
+            }
+        }
+
+        return register[result].copy();
+    }
+
+    /**
+     * Find all the states that can reach at least one of the given states, by visiting their predecessors.
+     *
+     * @param eval The states that are valid under the sub-formula.
+     * @param label The id of the label of the transitions.
+     * @return The set of states with a transition with the label into one of the given states.
+     */
+    private StateSet diamond(StateSet eval, int label) {
+        StateSet result = graph.emptySet();
+        for(int state = eval.nextState(0); state != -1; state = eval.nextState(state + 1)) {
+            for(int i = 0, n = graph.getInDegree(state, label); i < n; i++) {
+                result.add(graph.getStartpoint(state, label, i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find all the states of which all transitions end in one of the given states, by removing the predecessors of the
+     * other states.
+     *
+     * @param eval The states that are valid under the sub-formula.
+     * @param label The id of the label of the transitions.
+     * @return The set of states of which all transitions with the label end in one of the given states.
+     */
+    private StateSet box(StateSet eval, int label) {
+        StateSet result = graph.S();
+        StateSet invalid = eval.copy();
+        invalid.complement();
+        for(int state = invalid.nextState(0); state != -1; state = invalid.nextState(state + 1)) {
+            for(int i = 0, n = graph.getInDegree(state, label); i < n; i++) {
+                result.remove(graph.getStartpoint(state, label, i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for(int pc = 0; pc < code.length; pc += INSTRUCTION_SIZE) {
+            builder.append(pc / INSTRUCTION_SIZE).append(":\t").append(NAMES[code[pc]]);
+            switch(code[pc]) {
+                case TRUE:
+                case FALSE:
+                    builder.append(" r").append(code[pc + 1]);
+                    break;
+                case LOAD:
+                    builder.append(" r").append(code[pc + 1]).append(" s").append(code[pc + 2]);
+                    break;
+                case AND:
+                case OR:
+                    builder.append(" r").append(code[pc + 1]).append(" r").append(code[pc + 2])
+                            .append(" r").append(code[pc + 3]);
+                    break;
+                case DIAMOND:
+                case BOX:
+                    builder.append(" r").append(code[pc + 1]).append(" r").append(code[pc + 2]).append(" ")
+                            .append(code[pc + 3] == -1 ? "?" : graph.getLabel(code[pc + 3]));
+                    break;
+                case CLEAR:
+                case FILL:
+                    builder.append(" s").append(code[pc + 1]);
+                    break;
+                default:
+                    builder.append(" s").append(code[pc + 1]).append(" r").append(code[pc + 2])
+                            .append(" ").append(code[pc + 3] / INSTRUCTION_SIZE);
+            }
+            builder.append("\n");
+        }
+        return builder.append("result: r").append(result).toString();
+    }
+}
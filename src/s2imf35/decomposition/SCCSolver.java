@@ -0,0 +1,377 @@
+package s2imf35.decomposition;
+
+import s2imf35.PerformanceCounter;
+import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
+import s2imf35.graph.StronglyConnectedComponents;
+import s2imf35.operator.*;
+
+import java.util.*;
+
+import static s2imf35.operator.FormulaNode.*;
+
+/**
+ * A solver that applies the Emerson-Lei Algorithm to one strongly connected component of the graph at a time. The
+ * truth of a formula in a state only depends on the states that can be reached from it through the labels of the
+ * modalities in the formula. The components of the graph restricted to those labels are therefore solved in reverse
+ * topological order, such that every transition that leaves the current component ends in a component that is already
+ * solved, and whose evaluations of all sub-formulae are final.
+ *
+ * The fixpoints are iterated within the current component only, and the evaluations of the states in the solved
+ * components are frozen. A fixpoint thereby only needs as many iterations in a component as the longest chain of
+ * changes within that component, instead of the longest chain through the whole graph. The iteration count reports
+ * the largest number of iterations made in a single component, such that it remains comparable to the count of the
+ * Emerson-Lei Algorithm. The iterations of all components together are reported separately, where an iteration only
+ * costs time proportional to its component.
+ *
+ * The decomposition only pays off if the graph falls apart into many small components. If a single component holds
+ * more than a quarter of the states, most work is done in that component, at a higher cost per iteration than without
+ * the decomposition, so {@link #decompose(AbstractComponent)} reports that the formula should be solved as a whole.
+ *
+ * Small components are evaluated state by state. Components that hold at least a sixteenth of the states are evaluated
+ * with operations on whole sets, which are masked to the component, and modalities that walk backwards over the
+ * transitions as in the Emerson-Lei Algorithm, since visiting their states one by one would cost more than a sweep.
+ */
+public class SCCSolver {
+    // The graph the formula is evaluated on.
+    private final LTS graph;
+
+    // The performance counter that measures the performance of the algorithm.
+    private final PerformanceCounter counter;
+
+    // The states of the component that is being solved.
+    private int[] component = new int[0];
+    private int size = 0;
+
+    // The states of the component as a set, and whether the component is large enough to use operations on sets.
+    private StateSet mask;
+    private boolean bulk;
+
+    // The number of iterations made in the component that is being solved.
+    private int iterations;
+
+    // The flattened parse tree, its binders and the components of the graph under the labels of its modalities.
+    private Node root;
+    private final List<Node> binders = new ArrayList<>();
+    private StronglyConnectedComponents components;
+
+    /**
+     * A node in the flattened parse tree, which holds the evaluation of the sub-formula.
+     */
+    private static class Node extends FormulaNode<Node> {
+        // The evaluation of the sub-formula, which is the approximation of the variable for a binder.
+        StateSet value;
+
+        Node(int type, AbstractComponent component) {
+            super(type, component);
+        }
+    }
+
+    /**
+     * Create a solver for the given graph.
+     *
+     * @param graph The graph the formula should be applied to.
+     * @param counter A performance counter that measures the performance of the algorithm.
+     */
+    public SCCSolver(LTS graph, PerformanceCounter counter) {
+        this.graph = graph;
+        this.counter = counter;
+    }
+
+    /**
+     * Convert the formula, and decompose the graph into the strongly connected components under the labels of the
+     * modalities in the formula.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @return True if the decomposition pays off, false if a single component holds more than a quarter of
+     * the states.
+     */
+    public boolean decompose(AbstractComponent formula) {
+        // Convert the formula, and collect the labels that connect the states.
+        Set<Integer> labels = new TreeSet<>();
+        root = FormulaNode.flatten(formula, graph, Node::new);
+        prepare(root, labels);
+
+        components = new StronglyConnectedComponents(graph, labels.stream().mapToInt(Integer::intValue).toArray());
+        for(int c = 0; c < components.count; c++) {
+            if(4L * components.size(c) > graph.numberOfStates) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the set of states in which the formula given to {@link #decompose(AbstractComponent)} holds.
+     *
+     * @return The set of states S in which the formula holds.
+     */
+    public StateSet solve() {
+        // Solve the components bottom up, starting every fixpoint at its initial approximation within the component.
+        for(int c = 0; c < components.count; c++) {
+            size = components.size(c);
+            if(component.length < size) {
+                component = new int[Math.max(size, 2 * component.length)];
+            }
+            for(int i = 0; i < size; i++) {
+                component[i] = components.getState(c, i);
+            }
+
+            // Operations on sets visit every state, which pays off once the component holds a sixteenth of the states.
+            bulk = size >= graph.numberOfStates / 16;
+            if(bulk) {
+                mask = graph.emptySet();
+                for(int i = 0; i < size; i++) {
+                    mask.add(component[i]);
+                }
+            }
+
+            for(Node binder : binders) {
+                initialize(binder);
+            }
+            iterations = 0;
+            evaluate(root, null);
+            counter.iterations = Math.max(counter.iterations, iterations);
+        }
+
+        return valueOf(root).copy();
+    }
+
+    /**
+     * Create the initial evaluations of the given node and its descendants, and collect the binders and labels.
+     *
+     * @param node The node to start in.
+     * @param labels The set to which the ids of the labels of the modalities are added.
+     */
+    private void prepare(Node node, Set<Integer> labels) {
+        if(node.type == TRUE) {
+            node.value = graph.S();
+        } else if(node.type != VARIABLE) {
+            node.value = graph.emptySet();
+        }
+        if(node.isBinder()) {
+            binders.add(node);
+        }
+        if(node.label != -1) {
+            labels.add(node.label);
+        }
+
+        if(node.lhs != null) {
+            prepare(node.lhs, labels);
+        }
+        if(node.rhs != null) {
+            prepare(node.rhs, labels);
+        }
+    }
+
+    /**
+     * Evaluate the given node in the states of the current component, given the current approximations of the
+     * recursion variables.
+     *
+     * @param node The node to evaluate.
+     * @param lastBinder The binder that encloses the node most closely, null if there is none.
+     */
+    private void evaluate(Node node, Node lastBinder) {
+        switch(node.type) {
+            case TRUE:
+            case FALSE:
+            case VARIABLE:
+                // The evaluations do not depend on the approximations, or are the approximations themselves.
+                break;
+            case AND:
+            case OR:
+                evaluate(node.lhs, lastBinder);
+                evaluate(node.rhs, lastBinder);
+                combine(node, valueOf(node.lhs), valueOf(node.rhs));
+                break;
+            case DIAMOND:
+            case BOX:
+                evaluate(node.lhs, lastBinder);
+                if(bulk) {
+                    assign(node, findValidStatesByPredecessors(node, valueOf(node.lhs)));
+                } else {
+                    findValidStates(node, valueOf(node.lhs));
+                }
+                break;
+            default:
+                // Is the surrounding binder a different sign?
+                if(lastBinder != null && lastBinder.type != node.type) {
+                    for(Node binder : node.resets) {
+                        initialize(binder);
+                        counter.resets++;
+                    }
+                }
+
+                // Continue evaluating until the approximation remains unchanged within the component.
+                boolean changed;
+                do {
+                    evaluate(node.lhs, node);
+                    changed = update(node, valueOf(node.lhs));
+                    iterations++;
+                    counter.componentIterations++;
+                } while(changed);
+        }
+    }
+
+    /**
+     * Evaluate a conjunction or disjunction in the states of the current component.
+     *
+     * @param node The node of the conjunction or disjunction.
+     * @param lhs The evaluation of the left operand.
+     * @param rhs The evaluation of the right operand.
+     */
+    private void combine(Node node, StateSet lhs, StateSet rhs) {
+        if(bulk) {
+            StateSet result = lhs.copy();
+            if(node.type == AND) {
+                result.retainAll(rhs);
+            } else {
+                result.addAll(rhs);
+            }
+            assign(node, result);
+            return;
+        }
+
+        for(int i = 0; i < size; i++) {
+            int s = component[i];
+            boolean valid = node.type == AND ? lhs.contains(s) && rhs.contains(s) : lhs.contains(s) || rhs.contains(s);
+            set(node.value, s, valid);
+        }
+    }
+
+    /**
+     * Evaluate a modality in the states of the current component, by checking the transitions of each state.
+     *
+     * @param node The node of the modality.
+     * @param eval The evaluation of the sub-formula of the modality.
+     */
+    private void findValidStates(Node node, StateSet eval) {
+        boolean diamond = node.type == DIAMOND;
+        for(int i = 0; i < size; i++) {
+            int s = component[i];
+
+            // The diamond looks for a valid successor, the box for an invalid one.
+            boolean found = false;
+            if(node.label != -1) {
+                for(int j = 0, n = graph.getDegree(s, node.label); j < n && !found; j++) {
+                    found = eval.contains(graph.getEndpoint(s, node.label, j)) == diamond;
+                }
+            }
+            set(node.value, s, found == diamond);
+        }
+    }
+
+    /**
+     * Evaluate a modality in all states, by visiting the predecessors of the valid states for a diamond modality, or of
+     * the invalid states for a box modality.
+     *
+     * @param node The node of the modality.
+     * @param eval The evaluation of the sub-formula of the modality.
+     * @return The set of states that satisfy the modality.
+     */
+    private StateSet findValidStatesByPredecessors(Node node, StateSet eval) {
+        boolean diamond = node.type == DIAMOND;
+        StateSet result = diamond ? graph.emptySet() : graph.S();
+        if(node.label == -1) {
+            return result;
+        }
+
+        StateSet targets = eval;
+        if(!diamond) {
+            targets = eval.copy();
+            targets.complement();
+        }
+        for(int state = targets.nextState(0); state != -1; state = targets.nextState(state + 1)) {
+            for(int i = 0, n = graph.getInDegree(state, node.label); i < n; i++) {
+                set(result, graph.getStartpoint(state, node.label, i), diamond);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replace the evaluation of the given node in the states of the current component.
+     *
+     * @param node The node.
+     * @param result The new evaluation, of which only the states of the current component are used.
+     */
+    private void assign(Node node, StateSet result) {
+        result.retainAll(mask);
+        node.value.removeAll(mask);
+        node.value.addAll(result);
+    }
+
+    /**
+     * Replace the approximation of the given binder by the evaluation of its body in the states of the current
+     * component.
+     *
+     * @param binder The binder.
+     * @param body The evaluation of the body of the binder.
+     * @return Whether the approximation has changed.
+     */
+    private boolean update(Node binder, StateSet body) {
+        if(bulk) {
+            StateSet result = body.copy(), previous = binder.value.copy();
+            result.retainAll(mask);
+            previous.retainAll(mask);
+            if(result.equals(previous)) {
+                return false;
+            }
+            binder.value.removeAll(mask);
+            binder.value.addAll(result);
+            return true;
+        }
+
+        boolean changed = false;
+        for(int i = 0; i < size; i++) {
+            int s = component[i];
+            if(body.contains(s) != binder.value.contains(s)) {
+                set(binder.value, s, body.contains(s));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Set the approximation of the given binder to its initial value in the states of the current component.
+     *
+     * @param binder The binder to reset.
+     */
+    private void initialize(Node binder) {
+        if(bulk && binder.type == NU) {
+            binder.value.addAll(mask);
+        } else if(bulk) {
+            binder.value.removeAll(mask);
+        } else {
+            for(int i = 0; i < size; i++) {
+                set(binder.value, component[i], binder.type == NU);
+            }
+        }
+    }
+
+    /**
+     * Get the evaluation of the given node.
+     *
+     * @param node The node.
+     * @return The evaluation of the node, or the approximation of the variable if the node is a recursion variable.
+     */
+    private static StateSet valueOf(Node node) {
+        return node.type == VARIABLE ? node.binder.value : node.value;
+    }
+
+    /**
+     * Add a state to or remove a state from the given set.
+     *
+     * @param set The set.
+     * @param state The state.
+     * @param contained Whether the state should be in the set.
+     */
+    private static void set(StateSet set, int state, boolean contained) {
+        if(contained) {
+            set.add(state);
+        } else {
+            set.remove(state);
+        }
+    }
+}
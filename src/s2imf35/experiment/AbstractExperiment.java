@@ -6,6 +6,7 @@ import s2imf35.operator.AbstractComponent;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -50,29 +51,60 @@ public abstract class AbstractExperiment {
         return new String(new char[n]).replaceAll("\0", symbol);
     }
 
-    static Solution getSolution(Boolean mode, LTS graph, AbstractComponent formula) {
+    /**
+     * Open the cache of solutions on disk if the arguments ask for it.
+     *
+     * @param argMap The arguments given for the experiment.
+     * @return The cache in the directory given by -resultcache, or null if no directory is given.
+     * @throws IOException Thrown when the directory of the cache cannot be created.
+     */
+    static SolutionCache getCache(Map<String, Object> argMap) throws IOException {
+        String directory = (String) argMap.getOrDefault("-resultcache", null);
+        if(directory == null) {
+            return null;
+        }
+
+        // The size of the cache is given in megabytes.
+        long budget = (long) argMap.getOrDefault("-resultcachesize", 256L) << 20;
+        return new SolutionCache(Paths.get(directory), budget);
+    }
+
+    static Solution getSolution(Mode mode, LTS graph, AbstractComponent formula, SolutionCache cache)
+            throws IOException {
         Solution solution;
         if(mode == null) {
-            solution = Solver.solveNaive(formula, graph);
+            solution = solve(Mode.NAIVE, graph, formula, cache);
             System.out.println("Naive Solution: " + solution);
 
-            Solution solution2 = Solver.solveEmersonLei(formula, graph);
+            Solution solution2 = solve(Mode.EMERSON_LEI, graph, formula, cache);
             System.out.println("Emerson-Lei Solution: " + solution2);
 
             if(!solution.states.equals(solution2.states)) {
                 System.out.println("WARNING: THE SOLUTIONS OF THE NAIVE AND EMERSON-LEI ALGORITHMS ARE UNEQUAL!");
             }
-        } else if(!mode) {
-            solution = Solver.solveNaive(formula, graph);
-            System.out.println("Naive Solution: " + solution);
         } else {
-            solution = Solver.solveEmersonLei(formula, graph);
-            System.out.println("Emerson-Lei Solution: " + solution);
+            solution = solve(mode, graph, formula, cache);
+            System.out.println(mode.title + " Solution: " + solution);
         }
 
         return solution;
     }
 
+    /**
+     * Solve the given formula with the given algorithm, or load the solution from the cache.
+     *
+     * @param mode The algorithm that should be used.
+     * @param graph The graph that has to be used in the evaluation.
+     * @param formula The formula that has to be evaluated.
+     * @param cache The cache of solutions, or null if the formula should always be solved.
+     * @return The set of states in the graph for which the formula holds.
+     * @throws IOException Thrown when the solution cannot be stored in the cache.
+     */
+    private static Solution solve(Mode mode, LTS graph, AbstractComponent formula, SolutionCache cache)
+            throws IOException {
+        return cache == null ? Solver.solve(mode, formula, graph) : cache.solve(mode, formula, graph);
+    }
+
     List<String> getFormulaPaths(File[] files) {
         return Arrays.stream(files).filter(e -> e.getName().endsWith(".mcf"))
                 .map(File::getName).collect(Collectors.toList());
@@ -83,11 +115,14 @@ public abstract class AbstractExperiment {
                 .map(File::getName).collect(Collectors.toList());
     }
 
-    void runAllmethods(Boolean mode, String rootPath, List<String> formulaNames, List<String> graphNames, HashMap<String, HashMap<String, PerformanceCounter>> metrics) throws IOException {
+    void runAllmethods(Mode mode, SolutionCache cache, String rootPath, List<String> formulaNames, List<String> graphNames, HashMap<String, HashMap<String, PerformanceCounter>> metrics) throws IOException {
+        // Parse each formula once, and reuse it for every graph.
+        Map<String, AbstractComponent> formulas = new HashMap<>();
         for(String formulaFile : formulaNames) {
             metrics.put(formulaFile, new HashMap<>());
 
             AbstractComponent formula = Parser.parseFormulaFile(rootPath + formulaFile);
+            formulas.put(formulaFile, formula);
             System.out.println("File '" + formulaFile + "': " + formula);
             System.out.println("Nesting depth: " + formula.nestingDepth());
             System.out.println("Alternation depth: " + formula.alternationDepth());
@@ -102,10 +137,10 @@ public abstract class AbstractExperiment {
             LTS graph = Parser.parseSystemFile(rootPath + graphFile);
 
             for(String formulaFile : formulaNames) {
-                AbstractComponent formula = Parser.parseFormulaFile(rootPath + formulaFile);
+                AbstractComponent formula = formulas.get(formulaFile);
                 System.out.println("File '" + formulaFile + "': " + formula);
 
-                Solution solution = getSolution(mode, graph, formula);
+                Solution solution = getSolution(mode, graph, formula, cache);
                 metrics.get(formulaFile).put(graphFile, solution.counter);
 
                 // Print the solution under any verbosity level.
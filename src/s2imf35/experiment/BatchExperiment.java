@@ -0,0 +1,115 @@
+package s2imf35.experiment;
+
+import s2imf35.Mode;
+import s2imf35.Parser;
+import s2imf35.Solution;
+import s2imf35.Solver;
+import s2imf35.graph.LTS;
+import s2imf35.operator.AbstractComponent;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * An experiment that checks all formulas in a directory against all graphs in the same directory. Each graph is loaded
+ * once, after which the formulas are evaluated concurrently on a thread pool and reported in the order in which they
+ * complete.
+ *
+ * The formulas are parsed once and reused for every graph. The graphs are processed one after another, such that a
+ * parsed formula is never evaluated by two threads at the same time.
+ */
+public class BatchExperiment extends AbstractExperiment {
+    @Override
+    public void run(Map<String, Object> argMap) throws IOException {
+        // Print an identifiable header for the test group.
+        printHeader("Batch");
+
+        // Which method do we want to solve, and with how many threads?
+        Mode mode = (Mode) argMap.getOrDefault("-mode", Mode.EMERSON_LEI);
+        int threads = (int) argMap.getOrDefault("-threads", Runtime.getRuntime().availableProcessors());
+        int parallelism = (int) argMap.getOrDefault("-parallelism", Runtime.getRuntime().availableProcessors());
+
+        // Gather the required files.
+        String rootPath = (String) argMap.get("-batch");
+        if(!rootPath.endsWith("/")) {
+            rootPath += "/";
+        }
+        File[] files = new File(rootPath).listFiles();
+        if(files == null) {
+            throw new IOException("The directory '" + rootPath + "' cannot be read.");
+        }
+        List<String> formulaNames = getFormulaPaths(files);
+        List<String> graphNames = getGraphPaths(files);
+        Collections.sort(formulaNames);
+        Collections.sort(graphNames);
+
+        // Parse all formulas up front.
+        Map<String, AbstractComponent> formulas = new LinkedHashMap<>();
+        for(String formulaFile : formulaNames) {
+            formulas.put(formulaFile, Parser.parseFormulaFile(rootPath + formulaFile));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for(String graphFile : graphNames) {
+                System.out.println(">>> TESTING GRAPH FILE [" + graphFile.toUpperCase() + "] <<<");
+                System.out.println("Loading graph file '" + graphFile.toUpperCase() + "'.\n");
+                LTS graph = Parser.parseSystemFile(rootPath + graphFile);
+
+                // Submit all formulas, and print the reports in the order in which the evaluations complete.
+                CompletionService<String> completion = new ExecutorCompletionService<>(executor);
+                for(Map.Entry<String, AbstractComponent> entry : formulas.entrySet()) {
+                    completion.submit(() -> evaluate(mode, parallelism, graph, entry.getKey(), entry.getValue()));
+                }
+                for(int i = 0; i < formulas.size(); i++) {
+                    System.out.println(take(completion));
+                }
+
+                System.out.println();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Evaluate a single formula on the given graph, and describe the result.
+     *
+     * @param mode The algorithm that should be used.
+     * @param parallelism The number of threads used by the parallel algorithm.
+     * @param graph The graph the formula should be applied to.
+     * @param formulaFile The name of the file of the formula.
+     * @param formula The formula that has to be evaluated.
+     * @return A report of the solution and the evaluation in the initial state, or of the error that occurred.
+     */
+    private static String evaluate(Mode mode, int parallelism, LTS graph, String formulaFile,
+                                   AbstractComponent formula) {
+        try {
+            Solution solution = mode == Mode.PARALLEL ? Solver.solveParallel(formula, graph, parallelism) :
+                    Solver.solve(mode, formula, graph);
+            return "File '" + formulaFile + "': " + mode.title + " Solution: " + solution + "\n" +
+                    "Evaluation: " + solution.states.contains(graph.firstState);
+        } catch(RuntimeException e) {
+            return "File '" + formulaFile + "': " + mode.title + " failed: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Wait for the next evaluation to complete.
+     *
+     * @param completion The completion service the evaluations were submitted to.
+     * @return The report of the evaluation.
+     */
+    private static String take(CompletionService<String> completion) {
+        try {
+            return completion.take().get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the batch to complete.", e);
+        } catch(ExecutionException e) {
+            throw new RuntimeException("The evaluation of a formula failed.", e.getCause());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package s2imf35.experiment;
 
+import s2imf35.Mode;
 import s2imf35.PerformanceCounter;
 
 import java.io.File;
@@ -18,7 +19,7 @@ public class Experiment2 extends AbstractExperiment {
         printHeader("PART II: Demanding Children");
 
         // Which method do we want to solve?
-        Boolean mode = (Boolean) argMap.getOrDefault("-mode", null);
+        Mode mode = (Mode) argMap.getOrDefault("-mode", null);
 
         // Gather the required files.
         String rootPath = "inputs/experiment2/";
@@ -33,14 +34,14 @@ public class Experiment2 extends AbstractExperiment {
         HashMap<String, HashMap<String, PerformanceCounter>> metrics = new HashMap<>();
 
         // Run all the formula/graph combinations.
-        runAllmethods(mode, rootPath, formulaNames, graphNames, metrics);
+        runAllmethods(mode, getCache(argMap), rootPath, formulaNames, graphNames, metrics);
 
         // Report on the performance of the algorithm.
         getPerformanceDataString(metrics, mode);
     }
 
-    private void getPerformanceDataString(HashMap<String, HashMap<String, PerformanceCounter>> metrics, Boolean mode) {
-        String modeName = mode == null || !mode ? "naive" : "emerson_lei";
+    private void getPerformanceDataString(HashMap<String, HashMap<String, PerformanceCounter>> metrics, Mode mode) {
+        String modeName = mode == null ? Mode.NAIVE.abbreviation : mode.abbreviation;
 
         HashMap<String, String> abbreviations = new HashMap<>();
         abbreviations.put("F1.mcf", "f1");
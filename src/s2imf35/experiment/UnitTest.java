@@ -1,6 +1,6 @@
 package s2imf35.experiment;
 
-import s2imf35.Main;
+import s2imf35.Mode;
 import s2imf35.Parser;
 import s2imf35.Solution;
 import s2imf35.graph.LTS;
@@ -21,7 +21,7 @@ public class UnitTest extends AbstractExperiment {
         printHeader("PART I: Unit Tests");
 
         // Which method do we want to solve?
-        Boolean mode = (Boolean) argMap.getOrDefault("-mode", null);
+        Mode mode = (Mode) argMap.getOrDefault("-mode", null);
 
         String rootPath = "inputs/testcases/";
         Map<String, Integer> groups = new LinkedHashMap<>();
@@ -29,6 +29,7 @@ public class UnitTest extends AbstractExperiment {
         groups.put("modal_operators", 5);
         groups.put("fixpoints_only", 5);
         groups.put("combined", 5);
+        groups.put("variable_shadowing", 1);
 
         for(Map.Entry<String, Integer> entry : groups.entrySet()) {
             System.out.println(">>> TESTING FOLDER [" + entry.getKey().toUpperCase() + "] <<<");
@@ -40,7 +41,8 @@ public class UnitTest extends AbstractExperiment {
                 AbstractComponent formula = Parser.parseFormulaFile(rootPath + entry.getKey() + "/form" + i + ".mcf");
                 System.out.println("File 'form" + i + ".mcf': " + formula);
 
-                Solution solution = getSolution(mode, graph, formula);
+                // The solvers always run, since a cached solution would hide a regression.
+                Solution solution = getSolution(mode, graph, formula, null);
 
                 // Print the solution under any verbosity level.
                 System.out.println("Evaluation: " + solution.states.contains(graph.firstState) + "\n");
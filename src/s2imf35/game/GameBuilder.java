@@ -0,0 +1,226 @@
+package s2imf35.game;
+
+import s2imf35.graph.LTS;
+import s2imf35.operator.*;
+
+import java.util.*;
+
+import static s2imf35.operator.FormulaNode.*;
+
+/**
+ * A class that reduces the question whether a formula holds in the states of a graph to a parity game. The game has a
+ * vertex (s, f) for every state s of the graph and every sub-formula f of the formula, and player even wins from (s, f)
+ * iff f holds in s. Player even chooses at disjunctions and diamond modalities, player odd chooses at conjunctions and
+ * box modalities. The vertex of state s and the full formula is s itself.
+ *
+ * Fixpoint vertices get a priority based on the alternation depth of their binder: odd for mu and even for nu, such
+ * that outer binders dominate the binders of the opposite sign that are nested in them. Two sink vertices, won by player
+ * even and odd respectively, replace the missing moves of modalities in states without transitions with the label.
+ */
+public class GameBuilder {
+    // The successors that represent the sink vertices won by player even and odd respectively.
+    static final long TRUE_SINK = -1, FALSE_SINK = -2;
+
+    // The graph the formula is evaluated on.
+    private final LTS graph;
+
+    // The nodes of the flattened parse tree, in pre-order.
+    private final List<Node> nodes = new ArrayList<>();
+
+    /**
+     * A node in the flattened parse tree, which is numbered in pre-order.
+     */
+    private static class Node extends FormulaNode<Node> {
+        // The number of the node.
+        final int index;
+
+        // The priority of a binder, 0 otherwise.
+        final int priority;
+
+        Node(int type, AbstractComponent component, int index) {
+            super(type, component);
+            this.index = index;
+
+            // Mu binders get an odd priority, nu binders an even priority, increasing with the alternation depth.
+            int depth = isBinder() ? component.alternationDepth() : 0;
+            this.priority = type == MU ? 2 * depth - 1 : 2 * depth;
+        }
+    }
+
+    /**
+     * Create a game builder for the given graph.
+     *
+     * @param graph The graph the formula should be applied to.
+     */
+    private GameBuilder(LTS graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Build the parity game for the given formula and graph.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph the formula should be applied to.
+     * @return A parity game in which player even wins from vertex s iff the formula holds in state s.
+     */
+    public static ParityGame build(AbstractComponent formula, LTS graph) {
+        return create(formula, graph).build();
+    }
+
+    /**
+     * Flatten the given formula, such that the vertices and moves of its game can be generated on demand.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph the formula should be applied to.
+     * @return A game builder holding the flattened formula.
+     */
+    static GameBuilder create(AbstractComponent formula, LTS graph) {
+        // The nodes are created in pre-order, such that the root is node 0.
+        GameBuilder builder = new GameBuilder(graph);
+        FormulaNode.flatten(formula, graph, (type, component) -> {
+            Node node = new Node(type, component, builder.nodes.size());
+            builder.nodes.add(node);
+            return node;
+        });
+        return builder;
+    }
+
+    /**
+     * Create the vertices and moves of the game from the flattened formula.
+     *
+     * @return The parity game of the formula and the graph.
+     */
+    private ParityGame build() {
+        int n = graph.numberOfStates;
+        long size = (long) nodes.size() * n + 2;
+        if(size > Integer.MAX_VALUE - 8) {
+            throw new RuntimeException("The parity game has too many vertices (" + size + ").");
+        }
+
+        int numberOfVertices = (int) size;
+        int trueSink = numberOfVertices - 2;
+        int falseSink = numberOfVertices - 1;
+        int[] owner = new int[numberOfVertices];
+        int[] priority = new int[numberOfVertices];
+        int[] offsets = new int[numberOfVertices + 1];
+
+        // Count the moves of each vertex, and determine the owner and priority.
+        for(int node = 0; node < nodes.size(); node++) {
+            for(int s = 0; s < n; s++) {
+                int v = node * n + s;
+                owner[v] = getOwner(node);
+                priority[v] = getPriority(node);
+                offsets[v + 1] = getDegree(node, s);
+            }
+        }
+        priority[falseSink] = 1;
+        offsets[trueSink + 1] = 1;
+        offsets[falseSink + 1] = 1;
+        for(int v = 0; v < numberOfVertices; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        // Add the moves of each vertex.
+        int[] successors = new int[offsets[numberOfVertices]];
+        for(int node = 0; node < nodes.size(); node++) {
+            for(int s = 0; s < n; s++) {
+                int v = node * n + s;
+                for(int i = 0, d = offsets[v + 1] - offsets[v]; i < d; i++) {
+                    long w = getSuccessor(node, s, i);
+                    successors[offsets[v] + i] = w == TRUE_SINK ? trueSink : w == FALSE_SINK ? falseSink : (int) w;
+                }
+            }
+        }
+        successors[offsets[trueSink]] = trueSink;
+        successors[offsets[falseSink]] = falseSink;
+
+        return new ParityGame(owner, priority, offsets, successors);
+    }
+
+    /**
+     * Get the number of nodes in the flattened formula. The root of the formula is node 0.
+     *
+     * @return The number of sub-formulae, counting every occurrence separately.
+     */
+    int numberOfNodes() {
+        return nodes.size();
+    }
+
+    /**
+     * Get the player that chooses the move in the vertices of the given node.
+     *
+     * @param node The node of the sub-formula.
+     * @return EVEN or ODD.
+     */
+    int getOwner(int node) {
+        int type = nodes.get(node).type;
+        return type == AND || type == BOX ? ParityGame.ODD : ParityGame.EVEN;
+    }
+
+    /**
+     * Get the priority of the vertices of the given node.
+     *
+     * @param node The node of the sub-formula.
+     * @return The priority of the binder, or 0 if the node is not a binder.
+     */
+    int getPriority(int node) {
+        return nodes.get(node).priority;
+    }
+
+    /**
+     * Get one of the moves of the vertex of the given node and state.
+     *
+     * @param node The node of the sub-formula.
+     * @param s The state.
+     * @param index The index of the move, in the range [0, getDegree(node, s) - 1].
+     * @return The vertex node * numberOfStates + s of the successor, or one of TRUE_SINK and FALSE_SINK.
+     */
+    long getSuccessor(int node, int s, int index) {
+        Node current = nodes.get(node);
+        long n = graph.numberOfStates;
+        Node next = current.type == VARIABLE ? current.binder : current.lhs;
+        long left = next == null ? 0 : next.index * n;
+        switch(current.type) {
+            case TRUE:
+                return TRUE_SINK;
+            case FALSE:
+                return FALSE_SINK;
+            case AND:
+            case OR:
+                return (index == 0 ? left : current.rhs.index * n) + s;
+            case DIAMOND:
+            case BOX:
+                int label = current.label;
+                if(label == -1 || graph.getDegree(s, label) == 0) {
+                    // Player even cannot make a move to a satisfied state, player odd to a violated state.
+                    return current.type == DIAMOND ? FALSE_SINK : TRUE_SINK;
+                }
+                return left + graph.getEndpoint(s, label, index);
+            default:
+                // Recursion variables move to their binder, binders to their body.
+                return left + s;
+        }
+    }
+
+    /**
+     * Get the number of moves of the vertex of the given node and state.
+     *
+     * @param node The node of the sub-formula.
+     * @param s The state.
+     * @return The number of successors of the vertex.
+     */
+    int getDegree(int node, int s) {
+        Node current = nodes.get(node);
+        switch(current.type) {
+            case AND:
+            case OR:
+                return 2;
+            case DIAMOND:
+            case BOX:
+                int label = current.label;
+                return label == -1 ? 1 : Math.max(1, graph.getDegree(s, label));
+            default:
+                return 1;
+        }
+    }
+}
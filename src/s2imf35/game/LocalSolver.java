@@ -0,0 +1,262 @@
+package s2imf35.game;
+
+import s2imf35.PerformanceCounter;
+import s2imf35.graph.LTS;
+import s2imf35.operator.AbstractComponent;
+
+import java.util.Arrays;
+
+/**
+ * A solver that decides whether a formula holds in the initial state of a graph, without evaluating it in all states.
+ * The parity game of the GameBuilder is explored on demand, starting in the vertex of the initial state and the full
+ * formula, such that only the states that are relevant for the verdict are ever visited.
+ *
+ * Whenever the number of explored vertices has doubled, the attractors of both players to their sink vertices are
+ * computed on the explored part of the game. These capture the witnesses and counterexamples that consist of finite
+ * paths, and the exploration stops as soon as the initial vertex is in one of them. If the verdict depends on infinite
+ * plays, the game is explored completely and the explored part is solved with Zielonka's algorithm.
+ */
+public class LocalSolver {
+    // The number of explored vertices after which the attractors are computed for the first time.
+    private static final int FIRST_CHECK = 1024;
+
+    // The local ids of the vertices that are created first.
+    private static final int TRUE_SINK = 0, FALSE_SINK = 1, ROOT = 2;
+
+    // The marker of an empty slot in the table of keys.
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    // The flattened formula, which generates the moves of the game.
+    private final GameBuilder builder;
+
+    // The number of states in the graph.
+    private final int n;
+
+    // The performance counter that measures the performance of the algorithm.
+    private final PerformanceCounter counter;
+
+    // The vertex in the full game of each discovered vertex, indexed by local id.
+    private long[] keys = new long[1024];
+    private int size = 0;
+
+    // The owner and priority of each discovered vertex.
+    private int[] owner = new int[1024];
+    private int[] priority = new int[1024];
+
+    // An open addressing hash table from the vertices in the full game to their local id.
+    private long[] table = new long[2048];
+    private int[] ids = new int[2048];
+
+    // The moves of the explored vertices in the compressed sparse row format. The discovered vertices are explored in
+    // the order of their local id, so the vertices with an id below the number of explored vertices have moves.
+    private int[] offsets = new int[1025];
+    private int[] successors = new int[1024];
+    private int explored = 0;
+
+    /**
+     * Create a solver for the given formula and graph.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @param graph The graph the formula should be applied to.
+     * @param counter A performance counter that measures the performance of the algorithm.
+     */
+    public LocalSolver(AbstractComponent formula, LTS graph, PerformanceCounter counter) {
+        this.builder = GameBuilder.create(formula, graph);
+        this.n = graph.numberOfStates;
+        this.counter = counter;
+        Arrays.fill(table, EMPTY);
+
+        discover(GameBuilder.TRUE_SINK);
+        discover(GameBuilder.FALSE_SINK);
+        discover(graph.firstState);
+    }
+
+    /**
+     * Decide whether the formula holds in the initial state of the graph.
+     *
+     * @return True if player even wins from the vertex of the initial state, false otherwise.
+     */
+    public boolean solve() {
+        int check = FIRST_CHECK;
+        while(explored < size) {
+            explore(explored);
+            explored++;
+
+            if(explored == check) {
+                check *= 2;
+                int winner = decide();
+                if(winner != -1) {
+                    return winner == ParityGame.EVEN;
+                }
+            }
+        }
+
+        // The explored part is closed under moves, so it is a parity game on its own.
+        int[] offsets = Arrays.copyOf(this.offsets, size + 1);
+        int[] successors = Arrays.copyOf(this.successors, offsets[size]);
+        ParityGame game = new ParityGame(Arrays.copyOf(owner, size), Arrays.copyOf(priority, size), offsets, successors);
+        return new ZielonkaSolver(game, counter).solve().contains(ROOT);
+    }
+
+    /**
+     * Generate the moves of the given vertex, and discover its successors.
+     *
+     * @param v The local id of the vertex.
+     */
+    private void explore(int v) {
+        offsets[v + 1] = offsets[v];
+        long key = keys[v];
+        if(key < 0) {
+            // The sinks only have a move to themselves.
+            add(v, v);
+            return;
+        }
+
+        int node = (int) (key / n), s = (int) (key % n);
+        for(int i = 0, d = builder.getDegree(node, s); i < d; i++) {
+            add(v, discover(builder.getSuccessor(node, s, i)));
+        }
+    }
+
+    /**
+     * Add a move to the explored part of the game. The moves have to be added in the order of their source.
+     *
+     * @param v The local id of the source of the move.
+     * @param w The local id of the target of the move.
+     */
+    private void add(int v, int w) {
+        int moves = offsets[v + 1];
+        if(moves == successors.length) {
+            successors = Arrays.copyOf(successors, 2 * successors.length);
+        }
+        successors[moves] = w;
+        offsets[v + 1]++;
+    }
+
+    /**
+     * Find the local id of the given vertex, and assign a new one if the vertex has not been discovered before.
+     *
+     * @param key The vertex in the full game, or one of the sinks.
+     * @return The local id of the vertex.
+     */
+    private int discover(long key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while(table[slot] != EMPTY) {
+            if(table[slot] == key) {
+                return ids[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int v = size++;
+        if(v == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * v);
+            owner = Arrays.copyOf(owner, 2 * v);
+            priority = Arrays.copyOf(priority, 2 * v);
+            offsets = Arrays.copyOf(offsets, 2 * v + 1);
+        }
+        keys[v] = key;
+        if(key < 0) {
+            owner[v] = ParityGame.EVEN;
+            priority[v] = key == GameBuilder.TRUE_SINK ? 0 : 1;
+        } else {
+            owner[v] = builder.getOwner((int) (key / n));
+            priority[v] = builder.getPriority((int) (key / n));
+        }
+
+        table[slot] = key;
+        ids[slot] = v;
+        if(2 * size > table.length) {
+            rehash();
+        }
+        return v;
+    }
+
+    /**
+     * Double the size of the hash table.
+     */
+    private void rehash() {
+        int mask = 2 * table.length - 1;
+        long[] table = new long[mask + 1];
+        int[] ids = new int[mask + 1];
+        Arrays.fill(table, EMPTY);
+        for(int v = 0; v < size; v++) {
+            int slot = hash(keys[v]) & mask;
+            while(table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = keys[v];
+            ids[slot] = v;
+        }
+        this.table = table;
+        this.ids = ids;
+    }
+
+    /**
+     * Spread the bits of a key over the slots of the hash table.
+     *
+     * @param key The key.
+     * @return The hash of the key.
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Compute the attractors of player even to the true sink and of player odd to the false sink on the explored part
+     * of the game. Vertices that have not been explored yet are not attracted, since their moves are unknown.
+     *
+     * @return The player that wins from the initial vertex, or -1 if this is not decided yet.
+     */
+    private int decide() {
+        counter.iterations++;
+
+        // Collect the predecessors of all vertices over the moves of the explored vertices.
+        int[] reverseOffsets = new int[size + 1];
+        for(int i = 0; i < offsets[explored]; i++) {
+            reverseOffsets[successors[i] + 1]++;
+        }
+        for(int v = 0; v < size; v++) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+        int[] predecessors = new int[offsets[explored]];
+        int[] positions = Arrays.copyOf(reverseOffsets, size);
+        for(int v = 0; v < explored; v++) {
+            for(int i = offsets[v]; i < offsets[v + 1]; i++) {
+                predecessors[positions[successors[i]]++] = v;
+            }
+        }
+
+        int[] remaining = new int[size];
+        int[] queue = new int[size];
+        for(int player = ParityGame.EVEN; player <= ParityGame.ODD; player++) {
+            for(int v = 0; v < explored; v++) {
+                remaining[v] = offsets[v + 1] - offsets[v];
+            }
+
+            // The player attracts a vertex with one move into the attractor, the opponent only with all its moves.
+            int head = 0, tail = 0;
+            queue[tail++] = player == ParityGame.EVEN ? TRUE_SINK : FALSE_SINK;
+            remaining[queue[0]] = 0;
+            while(head < tail) {
+                int v = queue[head++];
+                if(v == ROOT) {
+                    return player;
+                }
+                for(int i = reverseOffsets[v]; i < reverseOffsets[v + 1]; i++) {
+                    int u = predecessors[i];
+                    if(remaining[u] == 0) {
+                        continue;
+                    }
+                    remaining[u] = owner[u] == player ? 0 : remaining[u] - 1;
+                    if(remaining[u] == 0) {
+                        queue[tail++] = u;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+}
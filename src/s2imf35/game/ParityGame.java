@@ -0,0 +1,170 @@
+package s2imf35.game;
+
+import s2imf35.graph.BitStateSet;
+import s2imf35.graph.StateSet;
+
+/**
+ * A class representing a max-parity game, in which the vertices are identified by the dense integers in the range
+ * [0, numberOfVertices - 1]. Player even (0) wins a play if the highest priority that occurs infinitely often is even,
+ * player odd (1) wins otherwise. The successors and predecessors of the vertices are stored in the compressed sparse
+ * row format, and every vertex has at least one successor.
+ */
+public class ParityGame {
+    // The players of the game.
+    public static final int EVEN = 0;
+    public static final int ODD = 1;
+
+    // The number of vertices in the game.
+    public final int numberOfVertices;
+
+    // The player that chooses the successor of each vertex.
+    private final int[] owner;
+
+    // The priority of each vertex.
+    private final int[] priority;
+
+    // The successors of the vertices, in the range [offsets[v], offsets[v + 1]) of the successor array.
+    private final int[] offsets;
+    private final int[] successors;
+
+    // The predecessors of the vertices, in the range [reverseOffsets[v], reverseOffsets[v + 1]).
+    private final int[] reverseOffsets;
+    private final int[] predecessors;
+
+    /**
+     * Create a parity game with the given vertices and moves.
+     *
+     * @param owner The player that chooses the successor of each vertex.
+     * @param priority The priority of each vertex.
+     * @param offsets The offsets of the successors of each vertex, of length numberOfVertices + 1.
+     * @param successors The successors of the vertices.
+     */
+    public ParityGame(int[] owner, int[] priority, int[] offsets, int[] successors) {
+        this.numberOfVertices = owner.length;
+        this.owner = owner;
+        this.priority = priority;
+        this.offsets = offsets;
+        this.successors = successors;
+
+        // Count the number of predecessors of each vertex, and convert the counts to offsets.
+        reverseOffsets = new int[numberOfVertices + 1];
+        for(int successor : successors) {
+            reverseOffsets[successor + 1]++;
+        }
+        for(int v = 0; v < numberOfVertices; v++) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+
+        // Place the predecessors in their slots.
+        predecessors = new int[successors.length];
+        int[] positions = new int[numberOfVertices];
+        System.arraycopy(reverseOffsets, 0, positions, 0, numberOfVertices);
+        for(int v = 0; v < numberOfVertices; v++) {
+            for(int i = offsets[v]; i < offsets[v + 1]; i++) {
+                predecessors[positions[successors[i]]++] = v;
+            }
+        }
+    }
+
+    /**
+     * Get the player that chooses the successor of the given vertex.
+     *
+     * @param vertex The vertex.
+     * @return EVEN or ODD.
+     */
+    public int getOwner(int vertex) {
+        return owner[vertex];
+    }
+
+    /**
+     * Get the priority of the given vertex.
+     *
+     * @param vertex The vertex.
+     * @return The non-negative priority of the vertex.
+     */
+    public int getPriority(int vertex) {
+        return priority[vertex];
+    }
+
+    /**
+     * Get the number of successors of the given vertex.
+     *
+     * @param vertex The vertex.
+     * @return The number of moves that start in the vertex.
+     */
+    public int getDegree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    /**
+     * Get one of the successors of the given vertex.
+     *
+     * @param vertex The vertex.
+     * @param index The index of the successor, in the range [0, getDegree(vertex) - 1].
+     * @return The successor at the given index.
+     */
+    public int getSuccessor(int vertex, int index) {
+        return successors[offsets[vertex] + index];
+    }
+
+    /**
+     * Get the number of predecessors of the given vertex.
+     *
+     * @param vertex The vertex.
+     * @return The number of moves that end in the vertex.
+     */
+    public int getInDegree(int vertex) {
+        return reverseOffsets[vertex + 1] - reverseOffsets[vertex];
+    }
+
+    /**
+     * Get one of the predecessors of the given vertex.
+     *
+     * @param vertex The vertex.
+     * @param index The index of the predecessor, in the range [0, getInDegree(vertex) - 1].
+     * @return The predecessor at the given index.
+     */
+    public int getPredecessor(int vertex, int index) {
+        return predecessors[reverseOffsets[vertex] + index];
+    }
+
+    /**
+     * Get the highest priority in the game.
+     *
+     * @return The maximal priority over all vertices.
+     */
+    public int getMaxPriority() {
+        int max = 0;
+        for(int p : priority) {
+            max = Math.max(max, p);
+        }
+        return max;
+    }
+
+    /**
+     * Generate a set containing all vertices of the game.
+     *
+     * @return A set of integers in the range [0, numberOfVertices - 1].
+     */
+    public StateSet V() {
+        return BitStateSet.full(numberOfVertices);
+    }
+
+    /**
+     * Generate a set that can hold the vertices of the game, but contains none of them.
+     *
+     * @return An empty set of vertices.
+     */
+    public StateSet emptySet() {
+        return new BitStateSet(numberOfVertices);
+    }
+
+    @Override
+    public String toString() {
+        return "ParityGame{" +
+                "numberOfVertices=" + numberOfVertices +
+                ", numberOfMoves=" + successors.length +
+                ", maxPriority=" + getMaxPriority() +
+                '}';
+    }
+}
@@ -0,0 +1,214 @@
+package s2imf35.game;
+
+import s2imf35.PerformanceCounter;
+import s2imf35.graph.StateSet;
+
+/**
+ * A solver for parity games that uses the small progress measures algorithm of Jurdzinski. Every vertex is assigned a
+ * measure, which is a tuple with one counter per odd priority, or top. A measure bounds how often player odd can still
+ * visit each odd priority before a higher even priority has to be visited. Measures are lifted until they are stable,
+ * after which player even wins exactly from the vertices whose measure is not top.
+ *
+ * Measures are compared lexicographically, starting at the counter of the highest odd priority. The counter of the odd
+ * priority p ranges over [0, n_p], where n_p is the number of vertices with priority p.
+ */
+public class ProgressMeasureSolver {
+    // The game that is solved.
+    private final ParityGame game;
+
+    // The performance counter that measures the performance of the algorithm.
+    private final PerformanceCounter counter;
+
+    // The number of odd priorities, and with that the number of counters in a measure.
+    private final int k;
+
+    // The maximal value of the counter of each odd priority 2i + 1.
+    private final int[] bound;
+
+    // The measures of the vertices, stored consecutively in blocks of k counters.
+    private final int[] measure;
+
+    // Whether the measure of each vertex is top.
+    private final boolean[] top;
+
+    // Scratch space for the candidate measures computed while lifting a vertex.
+    private final int[] candidate;
+    private final int[] best;
+
+    /**
+     * Create a solver for the given game.
+     *
+     * @param game The parity game that should be solved.
+     * @param counter A performance counter that measures the performance of the algorithm.
+     */
+    public ProgressMeasureSolver(ParityGame game, PerformanceCounter counter) {
+        this.game = game;
+        this.counter = counter;
+
+        k = (game.getMaxPriority() + 1) / 2;
+        bound = new int[k];
+        for(int v = 0; v < game.numberOfVertices; v++) {
+            int p = game.getPriority(v);
+            if((p & 1) == 1) {
+                bound[p / 2]++;
+            }
+        }
+
+        measure = new int[game.numberOfVertices * k];
+        top = new boolean[game.numberOfVertices];
+        candidate = new int[k];
+        best = new int[k];
+    }
+
+    /**
+     * Find the vertices from which player even has a winning strategy.
+     *
+     * @return The winning region of player even.
+     */
+    public StateSet solve() {
+        int n = game.numberOfVertices;
+
+        // A circular worklist of the vertices that may be lifted, which initially contains all vertices.
+        int[] queue = new int[n];
+        boolean[] queued = new boolean[n];
+        for(int v = 0; v < n; v++) {
+            queue[v] = v;
+            queued[v] = true;
+        }
+
+        // A pass ends once the vertices that were in the worklist at its start have all been visited.
+        int head = 0, size = n, pass = n;
+        while(size > 0) {
+            if(pass == 0) {
+                counter.iterations++;
+                pass = size;
+            }
+            int v = queue[head];
+            head = head + 1 == n ? 0 : head + 1;
+            size--;
+            pass--;
+            queued[v] = false;
+
+            if(!lift(v)) {
+                continue;
+            }
+            counter.lifts++;
+
+            // The predecessors of the vertex may be lifted as a consequence.
+            for(int i = 0, m = game.getInDegree(v); i < m; i++) {
+                int u = game.getPredecessor(v, i);
+                if(!queued[u] && !top[u]) {
+                    queued[u] = true;
+                    queue[(head + size) % n] = u;
+                    size++;
+                }
+            }
+        }
+
+        counter.iterations++;
+
+        StateSet won = game.emptySet();
+        for(int v = 0; v < n; v++) {
+            if(!top[v]) {
+                won.add(v);
+            }
+        }
+        return won;
+    }
+
+    /**
+     * Raise the measure of the given vertex to the best measure it can achieve through its successors: the minimum for
+     * vertices of player even and the maximum for vertices of player odd.
+     *
+     * @param v The vertex to lift.
+     * @return True if the measure of the vertex increased, false otherwise.
+     */
+    private boolean lift(int v) {
+        if(top[v]) {
+            return false;
+        }
+
+        boolean even = game.getOwner(v) == ParityGame.EVEN;
+        boolean bestTop = false;
+        for(int i = 0, m = game.getDegree(v); i < m; i++) {
+            boolean candidateTop = progress(v, game.getSuccessor(v, i));
+            if(i == 0 || (even ? compare(candidateTop, candidate, bestTop, best) < 0
+                    : compare(candidateTop, candidate, bestTop, best) > 0)) {
+                bestTop = candidateTop;
+                System.arraycopy(candidate, 0, best, 0, k);
+            }
+        }
+
+        // Measures only increase, so the lift has an effect iff the best measure exceeds the current one.
+        if(bestTop) {
+            top[v] = true;
+            return true;
+        }
+        int offset = v * k;
+        for(int i = k - 1; i >= 0; i--) {
+            if(best[i] != measure[offset + i]) {
+                if(best[i] < measure[offset + i]) {
+                    return false;
+                }
+                System.arraycopy(best, 0, measure, offset, k);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compute the least measure that is consistent with moving from vertex v to vertex w, and store it in the
+     * candidate array. The counters of priorities below the priority of v are irrelevant and set to zero, and if the
+     * priority of v is odd, the measure has to be strictly larger on the remaining counters.
+     *
+     * @param v The vertex the move starts in.
+     * @param w The vertex the move ends in.
+     * @return True if the measure is top, false otherwise.
+     */
+    private boolean progress(int v, int w) {
+        if(top[w]) {
+            return true;
+        }
+
+        int p = game.getPriority(v);
+        int offset = w * k;
+        for(int i = 0; i < k; i++) {
+            candidate[i] = 2 * i + 1 < p ? 0 : measure[offset + i];
+        }
+
+        if((p & 1) == 1) {
+            // Increment the counter of the priority, carrying over to the counters of higher priorities.
+            for(int i = p / 2; i < k; i++) {
+                if(candidate[i] < bound[i]) {
+                    candidate[i]++;
+                    return false;
+                }
+                candidate[i] = 0;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Compare two measures lexicographically, starting at the counter of the highest odd priority.
+     *
+     * @param aTop Whether the first measure is top.
+     * @param a The counters of the first measure.
+     * @param bTop Whether the second measure is top.
+     * @param b The counters of the second measure.
+     * @return A negative number, zero or a positive number if the first measure is smaller, equal or larger.
+     */
+    private int compare(boolean aTop, int[] a, boolean bTop, int[] b) {
+        if(aTop || bTop) {
+            return Boolean.compare(aTop, bTop);
+        }
+        for(int i = k - 1; i >= 0; i--) {
+            if(a[i] != b[i]) {
+                return Integer.compare(a[i], b[i]);
+            }
+        }
+        return 0;
+    }
+}
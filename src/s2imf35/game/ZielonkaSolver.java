@@ -0,0 +1,148 @@
+package s2imf35.game;
+
+import s2imf35.PerformanceCounter;
+import s2imf35.graph.StateSet;
+
+/**
+ * A solver for parity games that uses the recursive algorithm of Zielonka. The sub-games are represented as sets of
+ * vertices, and attractors are computed backwards over the predecessors with a counter per vertex of the opponent.
+ */
+public class ZielonkaSolver {
+    // The game that is solved.
+    private final ParityGame game;
+
+    // The performance counter that measures the performance of the algorithm.
+    private final PerformanceCounter counter;
+
+    // For the vertices of the opponent, the number of successors that are not attracted yet.
+    private final int[] remaining;
+
+    // The attractor computation in which the counter of each vertex was initialized.
+    private final int[] initialized;
+    private int attractors = 0;
+
+    // The queue of vertices of which the predecessors still have to be visited.
+    private final int[] queue;
+
+    /**
+     * Create a solver for the given game.
+     *
+     * @param game The parity game that should be solved.
+     * @param counter A performance counter that measures the performance of the algorithm.
+     */
+    public ZielonkaSolver(ParityGame game, PerformanceCounter counter) {
+        this.game = game;
+        this.counter = counter;
+        this.remaining = new int[game.numberOfVertices];
+        this.initialized = new int[game.numberOfVertices];
+        this.queue = new int[game.numberOfVertices];
+    }
+
+    /**
+     * Find the vertices from which player even has a winning strategy.
+     *
+     * @return The winning region of player even.
+     */
+    public StateSet solve() {
+        return solve(game.V())[ParityGame.EVEN];
+    }
+
+    /**
+     * Solve the sub-game induced by the given set of vertices, in which every vertex has a successor.
+     *
+     * @param vertices The vertices of the sub-game.
+     * @return The winning regions of player even and odd, in that order.
+     */
+    private StateSet[] solve(StateSet vertices) {
+        counter.iterations++;
+        if(vertices.isEmpty()) {
+            return new StateSet[] {game.emptySet(), game.emptySet()};
+        }
+
+        // Find the vertices with the highest priority, which is favourable for the player with the same parity.
+        int max = -1;
+        for(int v = vertices.nextState(0); v != -1; v = vertices.nextState(v + 1)) {
+            max = Math.max(max, game.getPriority(v));
+        }
+        StateSet top = game.emptySet();
+        for(int v = vertices.nextState(0); v != -1; v = vertices.nextState(v + 1)) {
+            if(game.getPriority(v) == max) {
+                top.add(v);
+            }
+        }
+
+        int player = max & 1;
+        int opponent = 1 - player;
+
+        // Solve the game without the vertices that the player can force to the highest priority.
+        StateSet attractor = attractor(vertices, top, player);
+        StateSet rest = vertices.copy();
+        rest.removeAll(attractor);
+        StateSet[] regions = solve(rest);
+
+        // If the opponent cannot win anywhere in the rest, the player wins everywhere.
+        if(regions[opponent].isEmpty()) {
+            StateSet[] result = new StateSet[2];
+            result[player] = vertices.copy();
+            result[opponent] = game.emptySet();
+            return result;
+        }
+
+        // Otherwise, the opponent wins in its attractor to its winning region, and the remainder is solved again.
+        StateSet lost = attractor(vertices, regions[opponent], opponent);
+        rest = vertices.copy();
+        rest.removeAll(lost);
+        regions = solve(rest);
+        regions[opponent].addAll(lost);
+        return regions;
+    }
+
+    /**
+     * Find the vertices in the sub-game from which the given player can force the play into the target set.
+     *
+     * @param vertices The vertices of the sub-game.
+     * @param target The target set, which is a subset of the vertices of the sub-game.
+     * @param player The player that wants to reach the target.
+     * @return The attractor of the player to the target set, within the sub-game.
+     */
+    private StateSet attractor(StateSet vertices, StateSet target, int player) {
+        attractors++;
+        StateSet result = target.copy();
+
+        int head = 0, tail = 0;
+        for(int v = target.nextState(0); v != -1; v = target.nextState(v + 1)) {
+            queue[tail++] = v;
+        }
+
+        while(head < tail) {
+            int v = queue[head++];
+            for(int i = 0, n = game.getInDegree(v); i < n; i++) {
+                int u = game.getPredecessor(v, i);
+                if(!vertices.contains(u) || result.contains(u)) {
+                    continue;
+                }
+
+                // The player attracts a vertex with one move into the attractor, the opponent only with all its moves.
+                if(game.getOwner(u) != player) {
+                    if(initialized[u] != attractors) {
+                        initialized[u] = attractors;
+                        remaining[u] = 0;
+                        for(int j = 0, m = game.getDegree(u); j < m; j++) {
+                            if(vertices.contains(game.getSuccessor(u, j))) {
+                                remaining[u]++;
+                            }
+                        }
+                    }
+                    if(--remaining[u] > 0) {
+                        continue;
+                    }
+                }
+
+                result.add(u);
+                queue[tail++] = u;
+            }
+        }
+
+        return result;
+    }
+}
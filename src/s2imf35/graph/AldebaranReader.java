@@ -0,0 +1,604 @@
+package s2imf35.graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * A reader for graphs in the Aldebaran format, which works directly on the bytes of the file instead of converting the
+ * file to a string first. The file is memory mapped and split into chunks at line boundaries, after which the chunks
+ * are tokenized in parallel into arrays of primitive values and merged into a single labelled transition system.
+ */
+public class AldebaranReader {
+    // The minimal number of bytes in a chunk, such that small files are not split needlessly.
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+    // The maximal number of bytes in a chunk, which keeps the mapped region of a chunk far below the 2GB limit.
+    private static final long MAX_CHUNK_SIZE = 1 << 28;
+
+    // The number of bytes that is initially mapped beyond the end of a chunk, to complete its last line.
+    private static final int OVERLAP = 1 << 12;
+
+    /**
+     * Read the graph in the given file and convert it to a labelled transition system in the CSR format.
+     *
+     * @param path The location of the graph in Aldebaran format.
+     * @return A labelled transition system representing the graph defined in the input file.
+     * @throws IOException If the file cannot be found or read.
+     */
+    public static CompressedLTS read(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Layout layout = new Layout(channel);
+            return merge(layout.parse(0, layout.chunks), layout.header);
+        }
+    }
+
+    /**
+     * Read the graph in the given file and convert it to a labelled transition system with off-heap storage, without
+     * holding the whole graph on the heap. The chunks are parsed in batches of as many chunks as there are threads, and
+     * the transitions of each batch are appended to off-heap arrays in the order of the file before the next batch is
+     * parsed. The CSR arrays are then built from these arrays with a counting sort.
+     *
+     * The arrays of parsed transitions take twelve bytes per transition on top of the CSR arrays. They are allocated
+     * in the same storage, so they remain part of the file into which the graph is mapped.
+     *
+     * @param path The location of the graph in Aldebaran format.
+     * @param file The file the arrays are mapped into, or null if they should be stored in direct buffers.
+     * @return A labelled transition system with off-heap storage representing the graph defined in the input file.
+     * @throws IOException If the file cannot be found or read, or the storage cannot be created.
+     */
+    public static OffHeapLTS readOffHeap(Path path, Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            OffHeapLTS.Storage storage = new OffHeapLTS.Storage(file)) {
+            Layout layout = new Layout(channel);
+            int n = layout.header[2], capacity = layout.header[1];
+
+            // The header determines the size of the arrays, since the transitions are not kept until all are parsed.
+            OffHeapIntArray startStates = storage.allocate(capacity);
+            OffHeapIntArray labels = storage.allocate(capacity);
+            OffHeapIntArray endStates = storage.allocate(capacity);
+            LinkedHashMap<String, Integer> labelIndex = new LinkedHashMap<>();
+            int m = 0;
+            int batch = ForkJoinPool.getCommonPoolParallelism();
+            for(int from = 0; from < layout.chunks; from += batch) {
+                for(Chunk chunk : layout.parse(from, Math.min(layout.chunks, from + batch))) {
+                    if(chunk.size > capacity - m) {
+                        throw new RuntimeException("The graph contains more transitions than the " + capacity +
+                                " declared in its header.");
+                    }
+                    int[] mapping = indexLabels(labelIndex, chunk);
+                    for(int j = 0; j < chunk.size; j++, m++) {
+                        startStates.set(m, chunk.startStates[j]);
+                        labels.set(m, mapping[chunk.labels[j]]);
+                        endStates.set(m, chunk.endStates[j]);
+                    }
+                }
+            }
+
+            // Count the transitions per label and start point, and convert the counts to offsets.
+            long stride = n + 1L, size = labelIndex.size() * stride;
+            OffHeapIntArray offsets = storage.allocate(size);
+            for(int i = 0; i < m; i++) {
+                long index = labels.get(i) * stride + startStates.get(i) + 1;
+                offsets.set(index, offsets.get(index) + 1);
+            }
+            for(long i = 1; i < size; i++) {
+                offsets.set(i, offsets.get(i) + offsets.get(i - 1));
+            }
+
+            // Place the end points in their slots, using the offsets as cursors, and shift the cursors back afterwards.
+            OffHeapIntArray targets = storage.allocate(m);
+            for(int i = 0; i < m; i++) {
+                long index = labels.get(i) * stride + startStates.get(i);
+                int position = offsets.get(index);
+                targets.set(position, endStates.get(i));
+                offsets.set(index, position + 1);
+            }
+            for(long i = size - 1; i > 0; i--) {
+                offsets.set(i, offsets.get(i - 1));
+            }
+            offsets.set(0, 0);
+
+            return new OffHeapLTS(layout.header[0], layout.header[1], n, new ArrayList<>(labelIndex.keySet()),
+                    offsets, targets, storage);
+        }
+    }
+
+    /**
+     * Map the given region of the file into memory.
+     *
+     * @param channel The channel of the file.
+     * @param offset The offset of the first byte of the region.
+     * @param end The offset of the first byte after the region.
+     * @return A read-only buffer holding the bytes in the region.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private static ByteBuffer map(FileChannel channel, long offset, long end) throws IOException {
+        if(end - offset > Integer.MAX_VALUE) {
+            throw new RuntimeException("The line starting at byte " + offset + " is too long.");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, end - offset);
+    }
+
+    /**
+     * Parse the transitions on the lines that start in the given range of the file.
+     *
+     * @param channel The channel of the file.
+     * @param size The size of the file.
+     * @param begin The offset of the first byte of the range.
+     * @param end The offset of the first byte after the range.
+     * @param numberOfStates The number of states in the graph.
+     * @return The parsed transitions of the chunk.
+     */
+    private static Chunk parseChunk(FileChannel channel, long size, long begin, long end, int numberOfStates) {
+        try {
+            // Include the byte before the range, such that we can see whether a line starts at the range.
+            long offset = begin - 1;
+            for(long overlap = OVERLAP; ; overlap *= 2) {
+                ByteBuffer buffer = map(channel, offset, Math.min(size, end + overlap));
+                Chunk chunk = new Chunk(offset);
+                if(chunk.parse(buffer, (int) (end - offset), buffer.limit() + offset == size, numberOfStates)) {
+                    return chunk;
+                }
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Merge the transitions of the given chunks into a single labelled transition system.
+     *
+     * @param chunks The parsed chunks, in the order in which they occur in the file.
+     * @param header The first state, number of transitions and number of states found in the header of the graph.
+     * @return A labelled transition system containing all the transitions in the chunks.
+     */
+    private static CompressedLTS merge(Chunk[] chunks, int[] header) {
+        // Give the labels a global index, in the order in which they occur in the file.
+        LinkedHashMap<String, Integer> labelIndex = new LinkedHashMap<>();
+        int[][] mapping = new int[chunks.length][];
+        long[] positions = new long[chunks.length + 1];
+        for(int i = 0; i < chunks.length; i++) {
+            mapping[i] = indexLabels(labelIndex, chunks[i]);
+            positions[i + 1] = positions[i] + chunks[i].size;
+        }
+
+        long m = positions[chunks.length];
+        if(m > Integer.MAX_VALUE - 8) {
+            throw new RuntimeException("The graph contains too many transitions (" + m + ").");
+        }
+
+        // Copy the transitions of the chunks to their position in the combined arrays.
+        int[] startStates = new int[(int) m];
+        int[] labels = new int[(int) m];
+        int[] endStates = new int[(int) m];
+        IntStream.range(0, chunks.length).parallel().forEach(i -> {
+            Chunk chunk = chunks[i];
+            int position = (int) positions[i];
+            System.arraycopy(chunk.startStates, 0, startStates, position, chunk.size);
+            System.arraycopy(chunk.endStates, 0, endStates, position, chunk.size);
+            for(int j = 0; j < chunk.size; j++) {
+                labels[position + j] = mapping[i][chunk.labels[j]];
+            }
+        });
+
+        return new CompressedLTS(header[0], header[1], header[2], new ArrayList<>(labelIndex.keySet()),
+                startStates, labels, endStates);
+    }
+
+    /**
+     * Give the labels of the given chunk a global index, in the order in which they occur in the file.
+     *
+     * @param labelIndex The global index of the labels found in the preceding chunks, to which new labels are added.
+     * @param chunk The parsed chunk.
+     * @return The global index of each label of the chunk, by its local index.
+     */
+    private static int[] indexLabels(LinkedHashMap<String, Integer> labelIndex, Chunk chunk) {
+        int[] mapping = new int[chunk.names.size()];
+        for(int l = 0; l < mapping.length; l++) {
+            mapping[l] = labelIndex.computeIfAbsent(chunk.names.get(l), k -> labelIndex.size());
+        }
+        return mapping;
+    }
+
+    /**
+     * The division of a graph file into its header and the chunks of lines holding the transitions.
+     */
+    private static class Layout {
+        // The channel of the file.
+        private final FileChannel channel;
+
+        // The size of the file.
+        private final long size;
+
+        // The first state, number of transitions and number of states found in the header of the graph.
+        private final int[] header;
+
+        // The offset of the first byte after the header, and the number of bytes in a chunk.
+        private final long begin, chunkSize;
+
+        // The number of chunks.
+        private final int chunks;
+
+        /**
+         * Read the header of the given file, and divide the remainder of the file into chunks.
+         *
+         * @param channel The channel of the file.
+         * @throws IOException If the file cannot be read.
+         */
+        Layout(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+
+            // The header is the first line, of the form 'des (first, transitions, states)'.
+            Chunk chunk = new Chunk(0);
+            int headerEnd = -1;
+            ByteBuffer buffer = null;
+            for(long overlap = OVERLAP; headerEnd == -1; overlap *= 2) {
+                buffer = map(channel, 0, Math.min(size, overlap));
+                headerEnd = chunk.findLineEnd(buffer, buffer.limit() == size);
+            }
+            this.header = chunk.parseHeader(buffer, 0, headerEnd);
+
+            // Divide the remainder of the file into chunks, which are parsed in parallel.
+            this.begin = Math.min(size, headerEnd + 1);
+            long length = size - begin;
+            int parallelism = ForkJoinPool.getCommonPoolParallelism();
+            this.chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, length / (4L * parallelism) + 1));
+            this.chunks = (int) ((length + chunkSize - 1) / chunkSize);
+        }
+
+        /**
+         * Parse the chunks in the given range in parallel.
+         *
+         * @param from The index of the first chunk.
+         * @param to The index of the first chunk after the range.
+         * @return The parsed chunks, in the order in which they occur in the file.
+         * @throws IOException If the file cannot be mapped.
+         */
+        Chunk[] parse(int from, int to) throws IOException {
+            try {
+                return IntStream.range(from, to).parallel().mapToObj(i -> {
+                    long start = begin + i * chunkSize;
+                    return parseChunk(channel, size, start, Math.min(size, start + chunkSize), header[2]);
+                }).toArray(Chunk[]::new);
+            } catch(UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * The transitions found in a chunk of the file, with the labels indexed locally.
+     */
+    private static class Chunk {
+        // The offset in the file of the first byte of the buffer that is parsed.
+        private final long offset;
+
+        // The transitions found in the chunk, as triples of primitive values.
+        private int[] startStates = new int[16];
+        private int[] labels = new int[16];
+        private int[] endStates = new int[16];
+        private int size = 0;
+
+        // The labels found in the chunk, in the order of their local index.
+        private final List<String> names = new ArrayList<>();
+
+        // The bytes of the labels found in the chunk, in the order of their local index.
+        private final List<byte[]> keys = new ArrayList<>();
+
+        // An open addressing hash table containing the local index + 1 of the labels, 0 for free slots.
+        private int[] table = new int[64];
+
+        // The current position in the buffer.
+        private int position;
+
+        Chunk(long offset) {
+            this.offset = offset;
+        }
+
+        /**
+         * Parse all lines that start in the range [1, end) of the buffer.
+         *
+         * @param buffer The buffer containing the chunk.
+         * @param end The index of the first byte after the range.
+         * @param eof Whether the buffer ends at the end of the file.
+         * @param numberOfStates The number of states in the graph.
+         * @return False if the last line does not end within the buffer, true otherwise.
+         */
+        boolean parse(ByteBuffer buffer, int end, boolean eof, int numberOfStates) {
+            // Skip the part of a line that started in the previous chunk.
+            position = 0;
+            while(position < end && buffer.get(position) != '\n') {
+                position++;
+            }
+            position++;
+
+            while(position < end) {
+                int lineEnd = findLineEnd(buffer, eof);
+                if(lineEnd == -1) {
+                    return false;
+                }
+                parseTransition(buffer, lineEnd, numberOfStates);
+                position = lineEnd + 1;
+            }
+            return true;
+        }
+
+        /**
+         * Find the end of the line that starts at the current position.
+         *
+         * @param buffer The buffer containing the line.
+         * @param eof Whether the buffer ends at the end of the file.
+         * @return The index of the newline character, or the limit of the buffer if the line is the last line in the
+         * file. -1 if the line does not end within the buffer.
+         */
+        int findLineEnd(ByteBuffer buffer, boolean eof) {
+            int limit = buffer.limit();
+            for(int i = position; i < limit; i++) {
+                if(buffer.get(i) == '\n') {
+                    return i;
+                }
+            }
+            return eof ? limit : -1;
+        }
+
+        /**
+         * Parse the header of the graph, which contains information about the first state, number of transitions and
+         * number of states.
+         *
+         * @param buffer The buffer containing the header.
+         * @param begin The index of the first byte of the header.
+         * @param end The index of the end of the header line.
+         * @return An array containing the first state, number of transitions and number of states, in that order.
+         */
+        int[] parseHeader(ByteBuffer buffer, int begin, int end) {
+            position = begin;
+            while(position < end && buffer.get(position) != '(') {
+                position++;
+            }
+            expect(buffer, end, '(');
+            int first = parseNumber(buffer, end);
+            expect(buffer, end, ',');
+            int transitions = parseNumber(buffer, end);
+            expect(buffer, end, ',');
+            int states = parseNumber(buffer, end);
+            expect(buffer, end, ')');
+            return new int[] {first, transitions, states};
+        }
+
+        /**
+         * Parse the transition on the line starting at the current position, of the form '(start, "label", end)'.
+         * Empty lines are ignored.
+         *
+         * @param buffer The buffer containing the line.
+         * @param end The index of the end of the line.
+         * @param numberOfStates The number of states in the graph.
+         */
+        private void parseTransition(ByteBuffer buffer, int end, int numberOfStates) {
+            skipWhitespace(buffer, end);
+            if(position == end) {
+                return;
+            }
+
+            expect(buffer, end, '(');
+            int startState = parseNumber(buffer, end);
+            expect(buffer, end, ',');
+            skipWhitespace(buffer, end);
+
+            // Labels are either quoted, or run up to the last comma of the line.
+            int labelStart, labelEnd;
+            if(position < end && buffer.get(position) == '"') {
+                labelStart = ++position;
+                while(position < end && buffer.get(position) != '"') {
+                    position++;
+                }
+                labelEnd = position;
+                expect(buffer, end, '"');
+            } else {
+                labelStart = position;
+                position = end;
+                while(position > labelStart && buffer.get(position - 1) != ',') {
+                    position--;
+                }
+                if(position == labelStart) {
+                    throw error("Expected ','");
+                }
+                labelEnd = --position;
+                while(labelEnd > labelStart && isWhitespace(buffer.get(labelEnd - 1))) {
+                    labelEnd--;
+                }
+            }
+            int label = indexLabel(buffer, labelStart, labelEnd);
+
+            expect(buffer, end, ',');
+            int endState = parseNumber(buffer, end);
+            expect(buffer, end, ')');
+            skipWhitespace(buffer, end);
+            if(position != end) {
+                throw error("Unexpected character '" + (char) buffer.get(position) + "'");
+            }
+
+            if(startState >= numberOfStates || endState >= numberOfStates) {
+                throw error("State " + Math.max(startState, endState) + " is out of range");
+            }
+            add(startState, label, endState);
+        }
+
+        /**
+         * Find the local index of the label stored in the given range of the buffer, adding the label if it is new.
+         *
+         * @param buffer The buffer containing the label.
+         * @param begin The index of the first byte of the label.
+         * @param end The index of the first byte after the label.
+         * @return The local index of the label.
+         */
+        private int indexLabel(ByteBuffer buffer, int begin, int end) {
+            int hash = 1;
+            for(int i = begin; i < end; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+
+            // Probe the table until either the label or a free slot is found.
+            int mask = table.length - 1;
+            for(int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int entry = table[slot];
+                if(entry == 0) {
+                    byte[] key = new byte[end - begin];
+                    for(int i = begin; i < end; i++) {
+                        key[i - begin] = buffer.get(i);
+                    }
+                    keys.add(key);
+                    names.add(new String(key, StandardCharsets.UTF_8));
+                    table[slot] = keys.size();
+
+                    // Keep the load factor of the table below one half.
+                    if(2 * keys.size() > table.length) {
+                        rehash();
+                    }
+                    return keys.size() - 1;
+                } else if(matches(keys.get(entry - 1), buffer, begin, end)) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        /**
+         * Check whether the given label is stored in the given range of the buffer.
+         *
+         * @param key The bytes of the label.
+         * @param buffer The buffer containing the range.
+         * @param begin The index of the first byte of the range.
+         * @param end The index of the first byte after the range.
+         * @return True if the bytes in the range equal the label, false otherwise.
+         */
+        private static boolean matches(byte[] key, ByteBuffer buffer, int begin, int end) {
+            if(key.length != end - begin) {
+                return false;
+            }
+            for(int i = 0; i < key.length; i++) {
+                if(key[i] != buffer.get(begin + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Double the size of the hash table, and reinsert all labels.
+         */
+        private void rehash() {
+            table = new int[2 * table.length];
+            int mask = table.length - 1;
+            for(int l = 0; l < keys.size(); l++) {
+                int hash = 1;
+                for(byte b : keys.get(l)) {
+                    hash = 31 * hash + b;
+                }
+
+                int slot = hash & mask;
+                while(table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = l + 1;
+            }
+        }
+
+        /**
+         * Add the given transition to the chunk.
+         *
+         * @param startState The start state of the transition.
+         * @param label The local index of the label of the transition.
+         * @param endState The end state of the transition.
+         */
+        private void add(int startState, int label, int endState) {
+            if(size == startStates.length) {
+                int capacity = size + (size >> 1);
+                startStates = Arrays.copyOf(startStates, capacity);
+                labels = Arrays.copyOf(labels, capacity);
+                endStates = Arrays.copyOf(endStates, capacity);
+            }
+            startStates[size] = startState;
+            labels[size] = label;
+            endStates[size++] = endState;
+        }
+
+        /**
+         * Parse the non-negative number at the current position, ignoring surrounding whitespace.
+         *
+         * @param buffer The buffer containing the number.
+         * @param end The index of the end of the line.
+         * @return The value of the number.
+         */
+        private int parseNumber(ByteBuffer buffer, int end) {
+            skipWhitespace(buffer, end);
+            int start = position;
+            long value = 0;
+            while(position < end) {
+                int digit = buffer.get(position) - '0';
+                if(digit < 0 || digit > 9) {
+                    break;
+                }
+                value = 10 * value + digit;
+                if(value > Integer.MAX_VALUE) {
+                    throw error("Number out of range");
+                }
+                position++;
+            }
+            if(position == start) {
+                throw error("Expected a number");
+            }
+            skipWhitespace(buffer, end);
+            return (int) value;
+        }
+
+        /**
+         * Skip the given character at the current position, along with the whitespace that follows it.
+         *
+         * @param buffer The buffer containing the line.
+         * @param end The index of the end of the line.
+         * @param c The character that is expected.
+         */
+        private void expect(ByteBuffer buffer, int end, char c) {
+            skipWhitespace(buffer, end);
+            if(position == end || buffer.get(position) != c) {
+                throw error("Expected '" + c + "'");
+            }
+            position++;
+            skipWhitespace(buffer, end);
+        }
+
+        /**
+         * Move the current position past any whitespace.
+         *
+         * @param buffer The buffer containing the line.
+         * @param end The index of the end of the line.
+         */
+        private void skipWhitespace(ByteBuffer buffer, int end) {
+            while(position < end && isWhitespace(buffer.get(position))) {
+                position++;
+            }
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+
+        /**
+         * Create an exception describing a syntax error at the current position.
+         *
+         * @param message The description of the error.
+         * @return An exception that can be thrown.
+         */
+        private RuntimeException error(String message) {
+            return new RuntimeException(message + " at byte " + (offset + position) + " of the graph.");
+        }
+    }
+}
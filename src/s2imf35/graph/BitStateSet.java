@@ -0,0 +1,175 @@
+package s2imf35.graph;
+
+import java.util.Arrays;
+
+/**
+ * A set of states backed by a bitset, in which each state in the range [0, numberOfStates - 1] is represented by a
+ * single bit in an array of 64-bit words. Operations between two bitsets are performed a word at a time.
+ */
+public class BitStateSet extends StateSet {
+    // The number of states that can be stored in the set.
+    private final int numberOfStates;
+
+    // The words holding the bits of the states.
+    private final long[] words;
+
+    /**
+     * Create an empty set of states, which can hold the states in the range [0, numberOfStates - 1].
+     *
+     * @param numberOfStates The number of states in the graph.
+     */
+    public BitStateSet(int numberOfStates) {
+        this.numberOfStates = numberOfStates;
+        this.words = new long[(numberOfStates + 63) >>> 6];
+    }
+
+    /**
+     * Create a set of states that uses the given words as its contents.
+     *
+     * @param numberOfStates The number of states in the graph.
+     * @param words The words holding the bits of the states.
+     */
+    private BitStateSet(int numberOfStates, long[] words) {
+        this.numberOfStates = numberOfStates;
+        this.words = words;
+    }
+
+    /**
+     * Create a set containing all states in the range [0, numberOfStates - 1].
+     *
+     * @param numberOfStates The number of states in the graph.
+     * @return The set of all states.
+     */
+    public static BitStateSet full(int numberOfStates) {
+        BitStateSet set = new BitStateSet(numberOfStates);
+        set.complement();
+        return set;
+    }
+
+    @Override
+    public boolean contains(int state) {
+        return (words[state >>> 6] & (1L << state)) != 0;
+    }
+
+    @Override
+    public void add(int state) {
+        words[state >>> 6] |= 1L << state;
+    }
+
+    @Override
+    public void remove(int state) {
+        words[state >>> 6] &= ~(1L << state);
+    }
+
+    @Override
+    public int nextState(int state) {
+        int i = state >>> 6;
+        if(state >= numberOfStates) {
+            return -1;
+        }
+
+        // Mask out the bits below the given state, and search for the first word with a bit set.
+        long word = words[i] & (-1L << state);
+        while(word == 0) {
+            if(++i == words.length) {
+                return -1;
+            }
+            word = words[i];
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for(long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for(long word : words) {
+            if(word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void retainAll(StateSet other) {
+        if(other instanceof BitStateSet) {
+            long[] otherWords = ((BitStateSet) other).words;
+            for(int i = 0; i < words.length; i++) {
+                words[i] &= otherWords[i];
+            }
+        } else {
+            super.retainAll(other);
+        }
+    }
+
+    @Override
+    public void addAll(StateSet other) {
+        if(other instanceof BitStateSet) {
+            long[] otherWords = ((BitStateSet) other).words;
+            for(int i = 0; i < words.length; i++) {
+                words[i] |= otherWords[i];
+            }
+        } else {
+            super.addAll(other);
+        }
+    }
+
+    @Override
+    public void removeAll(StateSet other) {
+        if(other instanceof BitStateSet) {
+            long[] otherWords = ((BitStateSet) other).words;
+            for(int i = 0; i < words.length; i++) {
+                words[i] &= ~otherWords[i];
+            }
+        } else {
+            super.removeAll(other);
+        }
+    }
+
+    @Override
+    public boolean containsAll(StateSet other) {
+        if(other instanceof BitStateSet) {
+            long[] otherWords = ((BitStateSet) other).words;
+            for(int i = 0; i < words.length; i++) {
+                if((otherWords[i] & ~words[i]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.containsAll(other);
+    }
+
+    @Override
+    public void complement() {
+        for(int i = 0; i < words.length; i++) {
+            words[i] = ~words[i];
+        }
+
+        // Clear the bits beyond the last state, such that they do not count as members.
+        if((numberOfStates & 63) != 0) {
+            words[words.length - 1] &= (1L << numberOfStates) - 1;
+        }
+    }
+
+    @Override
+    public BitStateSet copy() {
+        return new BitStateSet(numberOfStates, words.clone());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(o instanceof BitStateSet) {
+            return Arrays.equals(words, ((BitStateSet) o).words);
+        }
+        return super.equals(o);
+    }
+}
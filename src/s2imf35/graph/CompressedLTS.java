@@ -0,0 +1,175 @@
+package s2imf35.graph;
+
+import java.util.*;
+
+/**
+ * A class representing a labelled transition system, in which the transitions are stored per label in the compressed
+ * sparse row (CSR) format. For each label, the end points of all transitions starting in state s with the label are
+ * stored consecutively in the targets array, in the range [offsets[s], offsets[s + 1]). The predecessors of the states
+ * are stored in the same way, in the reverse offsets and sources arrays. Graphs in Aldebaran format are converted to
+ * this representation by the {@link AldebaranReader}.
+ *
+ * The edges are only grouped by label when the system is created. The CSR arrays of a label are built when the label
+ * is first used, and each direction separately, such that labels that are never referenced by a formula cost no more
+ * than their edges.
+ */
+public class CompressedLTS extends LTS {
+    // The edges grouped by label, where the edges of label l are in the range [labelOffsets[l], labelOffsets[l + 1]).
+    private final int[] labelOffsets;
+    private final int[] startStates;
+    private final int[] endStates;
+
+    // The transitions of each state per label, null for labels that have not been used yet.
+    private final Index[] successors;
+
+    // The transitions ending in each state per label, null for labels that have not been used yet.
+    private final Index[] predecessors;
+
+    /**
+     * Create a labelled transition system in the CSR format containing the given transitions.
+     *
+     * @param firstState The initial state of the system.
+     * @param numberOfTransitions The number of transitions in the system.
+     * @param numberOfStates The number of states in the system.
+     * @param labels The labels of the transitions, in the order of their id.
+     * @param startStates The start state of each transition.
+     * @param labelIds The id of the label of each transition.
+     * @param endStates The end state of each transition.
+     */
+    public CompressedLTS(int firstState, int numberOfTransitions, int numberOfStates, List<String> labels,
+                         int[] startStates, int[] labelIds, int[] endStates) {
+        super(firstState, numberOfTransitions, numberOfStates);
+        for(String label : labels) {
+            internLabel(label);
+        }
+
+        // Group the edges by label with a counting sort, keeping the original order within each label.
+        int m = startStates.length;
+        labelOffsets = new int[numberOfLabels() + 1];
+        for(int i = 0; i < m; i++) {
+            labelOffsets[labelIds[i] + 1]++;
+        }
+        for(int l = 0; l < numberOfLabels(); l++) {
+            labelOffsets[l + 1] += labelOffsets[l];
+        }
+        this.startStates = new int[m];
+        this.endStates = new int[m];
+        int[] positions = Arrays.copyOf(labelOffsets, numberOfLabels());
+        for(int i = 0; i < m; i++) {
+            int position = positions[labelIds[i]]++;
+            this.startStates[position] = startStates[i];
+            this.endStates[position] = endStates[i];
+        }
+
+        successors = new Index[numberOfLabels()];
+        predecessors = new Index[numberOfLabels()];
+    }
+
+    /**
+     * Get the CSR arrays of the transitions of each state with the given label, and build them on first use.
+     *
+     * @param label The id of the label.
+     * @return The offsets and end points of the transitions with the label.
+     */
+    private Index successors(int label) {
+        Index index = successors[label];
+        if(index == null) {
+            synchronized(successors) {
+                if((index = successors[label]) == null) {
+                    index = successors[label] = new Index(label, startStates, endStates);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the CSR arrays of the transitions ending in each state with the given label, and build them on first use.
+     *
+     * @param label The id of the label.
+     * @return The offsets and start points of the transitions with the label.
+     */
+    private Index predecessors(int label) {
+        Index index = predecessors[label];
+        if(index == null) {
+            synchronized(predecessors) {
+                if((index = predecessors[label]) == null) {
+                    index = predecessors[label] = new Index(label, endStates, startStates);
+                }
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public int getDegree(int node, int label) {
+        int[] offsets = successors(label).offsets;
+        return offsets[node + 1] - offsets[node];
+    }
+
+    @Override
+    public int getEndpoint(int node, int label, int index) {
+        Index successors = successors(label);
+        return successors.points[successors.offsets[node] + index];
+    }
+
+    @Override
+    public int getInDegree(int node, int label) {
+        int[] offsets = predecessors(label).offsets;
+        return offsets[node + 1] - offsets[node];
+    }
+
+    @Override
+    public int getStartpoint(int node, int label, int index) {
+        Index predecessors = predecessors(label);
+        return predecessors.points[predecessors.offsets[node] + index];
+    }
+
+    @Override
+    public void forEachTransition(TransitionConsumer consumer) {
+        for(int label = 0; label < numberOfLabels(); label++) {
+            for(int i = labelOffsets[label]; i < labelOffsets[label + 1]; i++) {
+                consumer.accept(startStates[i], label, endStates[i]);
+            }
+        }
+    }
+
+    /**
+     * The CSR arrays of the transitions with a single label in one direction. The fields are final, such that an index
+     * that is built by one thread can be read by others without further synchronization.
+     */
+    private class Index {
+        // The offsets of the transitions of each state.
+        private final int[] offsets;
+
+        // The other end points of the transitions.
+        private final int[] points;
+
+        /**
+         * Create the offset and point arrays of the given label, using a counting sort on the given side of its edges.
+         *
+         * @param label The id of the label.
+         * @param from The state of each edge by which the edges are indexed.
+         * @param to The state of each edge that is stored as its point.
+         */
+        private Index(int label, int[] from, int[] to) {
+            int begin = labelOffsets[label], end = labelOffsets[label + 1];
+
+            // Count the number of edges per state, and convert the counts to offsets.
+            offsets = new int[numberOfStates + 1];
+            for(int i = begin; i < end; i++) {
+                offsets[from[i] + 1]++;
+            }
+            for(int s = 0; s < numberOfStates; s++) {
+                offsets[s + 1] += offsets[s];
+            }
+
+            // Place the points in their slots.
+            points = new int[end - begin];
+            int[] positions = Arrays.copyOf(offsets, numberOfStates);
+            for(int i = begin; i < end; i++) {
+                points[positions[from[i]]++] = to[i];
+            }
+        }
+    }
+}
@@ -8,17 +8,17 @@ public class Edge {
     public final int startNode;
     public final int endNode;
 
-    // The label on the edge.
-    public final String label;
+    // The id of the label on the edge.
+    public final int label;
 
     /**
      * Create an edge between the two given nodes, with the given label.
      *
      * @param startNode The node the edge starts at.
-     * @param label The label on the edge.
+     * @param label The id of the label on the edge.
      * @param endNode The node the edge ends at.
      */
-    public Edge(int startNode, String label, int endNode) {
+    public Edge(int startNode, int label, int endNode) {
         this.startNode = startNode;
         this.label = label;
         this.endNode = endNode;
@@ -28,7 +28,7 @@ public class Edge {
     public String toString() {
         return "(" +
                 startNode +
-                ",\"" + label + "\"," +
+                "," + label + "," +
                 endNode +
                 ')';
     }
@@ -0,0 +1,238 @@
+package s2imf35.graph;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * A class representing a labelled transition system, represented by a list of edges.
+ */
+public class EdgeListLTS extends LTS {
+    // The edges in the LTS.
+    private final List<Edge> edges = new ArrayList<>();
+
+    // The edges grouped by label id.
+    private final List<List<Edge>> labelToEdge = new ArrayList<>();
+
+    // The edges grouped by starting point, built on first use.
+    private HashMap<Integer, List<Edge>> startToEdge;
+
+    // The edges grouped by end point, built on first use.
+    private HashMap<Integer, List<Edge>> endToEdge;
+
+    // All endpoints of edges with the given label id, starting at the given state, null for labels that have not been
+    // used yet.
+    private final Modality[] modalityMap;
+
+    // All start points of edges with the given label id, ending at the given state, null for labels that have not been
+    // used yet.
+    private final Modality[] reverseModalityMap;
+
+    // The points of the states without edges with a label.
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Convert the given graph in string representation to a labelled transition system represented by edge lists.
+     *
+     * @param system The graph in string form in Aldebaran format.
+     */
+    public EdgeListLTS(String system) {
+        this(system.split("\\r?\\n"));
+    }
+
+    /**
+     * Convert the given lines of the graph to a labelled transition system represented by edge lists.
+     *
+     * @param lines The lines of the graph in Aldebaran format.
+     */
+    private EdgeListLTS(String[] lines) {
+        this(lines, parseHeader(lines[0]));
+    }
+
+    /**
+     * Convert the given lines of the graph to a labelled transition system represented by edge lists.
+     *
+     * @param lines The lines of the graph in Aldebaran format.
+     * @param header The first state, number of transitions and number of states found in the header of the graph.
+     */
+    private EdgeListLTS(String[] lines, int[] header) {
+        super(header[0], header[1], header[2]);
+
+        // Import all the edges.
+        for(int i = 1; i < lines.length; i++) {
+            String[] components = lines[i].substring(1, lines[i].length() - 1).split(",");
+
+            int startState = Integer.parseInt(components[0]);
+            int label = internLabel(components[1].substring(1, components[1].length() - 1));
+            int endState = Integer.parseInt(components[2]);
+
+            Edge edge = new Edge(startState, label, endState);
+            edges.add(edge);
+
+            if(label == labelToEdge.size()) {
+                labelToEdge.add(new ArrayList<>());
+            }
+            labelToEdge.get(label).add(edge);
+        }
+
+        // The indices of the labels are built when the labels are used.
+        modalityMap = new Modality[numberOfLabels()];
+        reverseModalityMap = new Modality[numberOfLabels()];
+    }
+
+    /**
+     * Get all edges in the graph with the given label.
+     *
+     * @param label The id of the desired label.
+     * @return A list of all edges that have the given label.
+     */
+    public List<Edge> label(int label) {
+        return labelToEdge.get(label);
+    }
+
+    /**
+     * Get all edges in the graph that start in the given node.
+     *
+     * @param node The starting node.
+     * @return A list of all edges that start in the given node.
+     */
+    public synchronized List<Edge> start(int node) {
+        if(startToEdge == null) {
+            startToEdge = group(edges, e -> e.startNode);
+        }
+        return startToEdge.getOrDefault(node, new ArrayList<>());
+    }
+
+    /**
+     * Get all edges in the graph that end in the given node.
+     *
+     * @param node The end node.
+     * @return A list of all edges that end in the given node.
+     */
+    public synchronized List<Edge> end(int node) {
+        if(endToEdge == null) {
+            endToEdge = group(edges, e -> e.endNode);
+        }
+        return endToEdge.getOrDefault(node, new ArrayList<>());
+    }
+
+    /**
+     * Group the given edges by one of their end points, keeping the order of the edges within each group.
+     *
+     * @param edges The edges to group.
+     * @param key The end point by which the edges are grouped.
+     * @return A mapping from each state to the edges for which it is the chosen end point.
+     */
+    private static HashMap<Integer, List<Edge>> group(List<Edge> edges, ToIntFunction<Edge> key) {
+        HashMap<Integer, List<Edge>> groups = new HashMap<>();
+        for(Edge edge : edges) {
+            groups.computeIfAbsent(key.applyAsInt(edge), k -> new ArrayList<>()).add(edge);
+        }
+        return groups;
+    }
+
+    @Override
+    public int getDegree(int node, int label) {
+        return endpoints(node, label).length;
+    }
+
+    @Override
+    public int getEndpoint(int node, int label, int index) {
+        return endpoints(node, label)[index];
+    }
+
+    @Override
+    public int getInDegree(int node, int label) {
+        return startpoints(node, label).length;
+    }
+
+    @Override
+    public int getStartpoint(int node, int label, int index) {
+        return startpoints(node, label)[index];
+    }
+
+    @Override
+    public void forEachTransition(TransitionConsumer consumer) {
+        for(int label = 0; label < numberOfLabels(); label++) {
+            for(Edge edge : label(label)) {
+                consumer.accept(edge.startNode, label, edge.endNode);
+            }
+        }
+    }
+
+    /**
+     * Get all the end points reachable through one transition with the given label, starting at the given state.
+     *
+     * @param node The start node.
+     * @param label The id of the label of the transitions.
+     * @return An array of all distinct end points of the transitions.
+     */
+    private int[] endpoints(int node, int label) {
+        return modality(modalityMap, label, e -> e.startNode, e -> e.endNode).points.getOrDefault(node, EMPTY);
+    }
+
+    /**
+     * Get all the start points that reach the given state through one transition with the given label.
+     *
+     * @param node The end node.
+     * @param label The id of the label of the transitions.
+     * @return An array of all distinct start points of the transitions.
+     */
+    private int[] startpoints(int node, int label) {
+        Modality modality = modality(reverseModalityMap, label, e -> e.endNode, e -> e.startNode);
+        return modality.points.getOrDefault(node, EMPTY);
+    }
+
+    /**
+     * Get the mapping from states to the distinct other end points of their edges with the given label, and build it
+     * from the edges with the label if it has not been used yet.
+     *
+     * @param maps The mappings of all labels in one direction.
+     * @param label The id of the label of the transitions.
+     * @param from The end point of the edges by which the mapping is indexed.
+     * @param to The end point of the edges that is stored in the mapping.
+     * @return The mapping of the label.
+     */
+    private Modality modality(Modality[] maps, int label, ToIntFunction<Edge> from, ToIntFunction<Edge> to) {
+        Modality modality = maps[label];
+        if(modality == null) {
+            synchronized(maps) {
+                if((modality = maps[label]) == null) {
+                    modality = maps[label] = new Modality(label(label), from, to);
+                }
+            }
+        }
+        return modality;
+    }
+
+    /**
+     * The mapping from states to the distinct other end points of their edges with one label, in one direction.
+     */
+    private static class Modality {
+        // The other end points of the edges of each state that has edges with the label.
+        private final HashMap<Integer, int[]> points = new HashMap<>();
+
+        /**
+         * Create the mapping of the given edges.
+         *
+         * @param edges The edges with the label.
+         * @param from The end point of the edges by which the mapping is indexed.
+         * @param to The end point of the edges that is stored in the mapping.
+         */
+        private Modality(List<Edge> edges, ToIntFunction<Edge> from, ToIntFunction<Edge> to) {
+            for(Map.Entry<Integer, List<Edge>> entry : group(edges, from).entrySet()) {
+                points.put(entry.getKey(), entry.getValue().stream().mapToInt(to).distinct().toArray());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LTS{" +
+                "firstState=" + firstState +
+                ", numberOfTransitions=" + numberOfTransitions +
+                ", numberOfStates=" + numberOfStates +
+                ", labels=" + getLabels() +
+                ", edges=" + Arrays.toString(edges.toArray()) +
+                '}';
+    }
+}
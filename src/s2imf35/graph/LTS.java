@@ -1,128 +1,173 @@
 package s2imf35.graph;
 
-import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 
 /**
- * A class representing a labelled transition system, represented by a list of edges.
+ * An abstract class representing a labelled transition system, independent of the way the transitions are stored.
+ * Labels are interned when the graph is loaded, such that transitions can be looked up with a dense integer label id
+ * instead of the label itself.
  */
-public class LTS {
+public abstract class LTS {
     // Generic information.
     public final int firstState;
     public final int numberOfTransitions;
     public final int numberOfStates;
 
-    // The edges in the LTS.
-    private final List<Edge> edges = new ArrayList<>();
+    // The labels of the graph, indexed by their id.
+    private final List<String> labels = new ArrayList<>();
 
-    // The edges grouped by label.
-    private final HashMap<String, List<Edge>> labelToEdge = new HashMap<>();
-
-    // The edges grouped by starting point.
-    private final HashMap<Integer, List<Edge>> startToEdge = new HashMap<>();
-
-    // The edges grouped by end point.
-    private final HashMap<Integer, List<Edge>> endToEdge = new HashMap<>();
-
-    // All endpoints of edges with the given label, starting at the given state.
-    private final HashMap<String, HashMap<Integer, Set<Integer>>> modalityMap = new HashMap<>();
+    // The id of each of the labels of the graph.
+    private final HashMap<String, Integer> labelIds = new HashMap<>();
 
     /**
-     * Convert the given graph in string representation to a labelled transition system represented by edge lists.
+     * Create a labelled transition system with the given generic information.
      *
-     * @param system The graph in string form in Aldebaran format.
+     * @param firstState The initial state of the system.
+     * @param numberOfTransitions The number of transitions in the system.
+     * @param numberOfStates The number of states in the system.
      */
-    public LTS(String system) {
-        // Convert the string to lines.
-        String[] lines = system.split("\\r?\\n");
+    protected LTS(int firstState, int numberOfTransitions, int numberOfStates) {
+        this.firstState = firstState;
+        this.numberOfTransitions = numberOfTransitions;
+        this.numberOfStates = numberOfStates;
+    }
 
-        // The first line contains information about the first state, number of transitions and number of states.
-        int startIndex = lines[0].indexOf("(");
-        int endIndex = lines[0].indexOf(")");
-        String component = lines[0].substring(startIndex + 1, endIndex);
+    /**
+     * Parse the header of a graph in Aldebaran format, which contains information about the first state, number of
+     * transitions and number of states.
+     *
+     * @param header The first line of the graph, of the form 'des (first, transitions, states)'.
+     * @return An array containing the first state, number of transitions and number of states, in that order.
+     */
+    protected static int[] parseHeader(String header) {
+        int startIndex = header.indexOf("(");
+        int endIndex = header.indexOf(")");
+        String component = header.substring(startIndex + 1, endIndex);
         String[] components = component.split(",");
 
-        firstState = Integer.parseInt(components[0]);
-        numberOfTransitions = Integer.parseInt(components[1]);
-        numberOfStates = Integer.parseInt(components[2]);
-
-        // Import all the edges.
-        for(int i = 1; i < lines.length; i++) {
-            components = lines[i].substring(1, lines[i].length() - 1).split(",");
-
-            int startState = Integer.parseInt(components[0]);
-            String label = components[1].substring(1, components[1].length() - 1);
-            int endState = Integer.parseInt(components[2]);
-
-            Edge edge = new Edge(startState, label, endState);
-            edges.add(edge);
-
-            List<Edge> edgeList = labelToEdge.getOrDefault(label, new ArrayList<>());
-            edgeList.add(edge);
-            labelToEdge.put(label, edgeList);
-
-            edgeList = startToEdge.getOrDefault(startState, new ArrayList<>());
-            edgeList.add(edge);
-            startToEdge.put(startState, edgeList);
+        return new int[] {
+                Integer.parseInt(components[0].trim()),
+                Integer.parseInt(components[1].trim()),
+                Integer.parseInt(components[2].trim())
+        };
+    }
 
-            edgeList = endToEdge.getOrDefault(endState, new ArrayList<>());
-            edgeList.add(edge);
-            endToEdge.put(endState, edgeList);
+    /**
+     * Add the given label to the label dictionary of the graph, if it is not part of it yet.
+     *
+     * @param label The label to intern.
+     * @return The id of the label, in the range [0, numberOfLabels() - 1].
+     */
+    protected int internLabel(String label) {
+        Integer id = labelIds.get(label);
+        if(id == null) {
+            id = labels.size();
+            labels.add(label);
+            labelIds.put(label, id);
         }
+        return id;
+    }
 
-        // Populate the modality map.
-        for(String label : labelToEdge.keySet()) {
-            HashMap<Integer, Set<Integer>> map = new HashMap<>();
-
-            for(int state : S()) {
-                Stream<Edge> edges = start(state).stream().filter(e -> e.label.equals(label));
-                map.put(state, edges.map(e -> e.endNode).collect(Collectors.toSet()));
-            }
+    /**
+     * Get all labels that occur on at least one transition of the graph.
+     *
+     * @return The labels used within the graph, in the order of their id.
+     */
+    public List<String> getLabels() {
+        return Collections.unmodifiableList(labels);
+    }
 
-            modalityMap.put(label, map);
-        }
+    /**
+     * Get the number of distinct labels in the graph.
+     *
+     * @return The number of labels used within the graph.
+     */
+    public int numberOfLabels() {
+        return labels.size();
     }
 
     /**
-     * Get all edges in the graph with the given label.
+     * Find the id of the given label.
      *
-     * @param label The desired label.
-     * @return A list of all edges that have the given label.
+     * @param label The label to look for.
+     * @return The id of the label, or -1 if no transition in the graph has the label.
      */
-    public List<Edge> label(String label) {
-        return labelToEdge.getOrDefault(label, new ArrayList<>());
+    public int getLabelId(String label) {
+        return labelIds.getOrDefault(label, -1);
     }
 
     /**
-     * Get all edges in the graph that start in the given node.
+     * Get the label that has the given id.
      *
-     * @param node The starting node.
-     * @return A list of all edges that start in the given node.
+     * @param id The id of the label, in the range [0, numberOfLabels() - 1].
+     * @return The label with the given id.
      */
-    public List<Edge> start(int node) {
-        return startToEdge.getOrDefault(node, new ArrayList<>());
+    public String getLabel(int id) {
+        return labels.get(id);
     }
 
     /**
-     * Get all edges in the graph that end in the given node.
+     * Get the number of end points reachable through one transition with the given label, starting at the given state.
+     *
+     * @param node The start node.
+     * @param label The id of the label of the transitions.
+     * @return The number of transitions with the given label that start in the given node.
+     */
+    public abstract int getDegree(int node, int label);
+
+    /**
+     * Get one of the end points reachable through one transition with the given label, starting at the given state.
+     *
+     * @param node The start node.
+     * @param label The id of the label of the transitions.
+     * @param index The index of the transition, in the range [0, getDegree(node, label) - 1].
+     * @return The end point of the transition at the given index.
+     */
+    public abstract int getEndpoint(int node, int label, int index);
+
+    /**
+     * Get the number of start points that reach the given state through one transition with the given label.
      *
      * @param node The end node.
-     * @return A list of all edges that end in the given node.
+     * @param label The id of the label of the transitions.
+     * @return The number of transitions with the given label that end in the given node.
      */
-    public List<Edge> end(int node) {
-        return endToEdge.getOrDefault(node, new ArrayList<>());
-    }
+    public abstract int getInDegree(int node, int label);
 
     /**
-     * Get all the end points reachable through one transition with the given label, starting at the given state.
+     * Get one of the start points that reach the given state through one transition with the given label.
      *
      * @param node The end node.
-     * @return A list of all edges that end in the given node.
+     * @param label The id of the label of the transitions.
+     * @param index The index of the transition, in the range [0, getInDegree(node, label) - 1].
+     * @return The start point of the transition at the given index.
+     */
+    public abstract int getStartpoint(int node, int label, int index);
+
+    /**
+     * Pass every transition of the graph to the given consumer, grouped by label in the order of their id. The
+     * transitions are read from the stored edges directly, such that no index of a label is built, and transitions that
+     * occur more than once are passed as often as they occur.
+     *
+     * @param consumer The consumer of the transitions.
      */
-    public Set<Integer> getEndpoints(int node, String label) {
-        return modalityMap.getOrDefault(label, new HashMap<>()).getOrDefault(node, new HashSet<>());
+    public abstract void forEachTransition(TransitionConsumer consumer);
+
+    /**
+     * A consumer of the transitions of a graph.
+     */
+    public interface TransitionConsumer {
+        /**
+         * Accept a single transition.
+         *
+         * @param startState The start state of the transition.
+         * @param label The id of the label of the transition.
+         * @param endState The end state of the transition.
+         */
+        void accept(int startState, int label, int endState);
     }
 
     @Override
@@ -131,7 +176,6 @@ public class LTS {
                 "firstState=" + firstState +
                 ", numberOfTransitions=" + numberOfTransitions +
                 ", numberOfStates=" + numberOfStates +
-                ", edges=" + Arrays.toString(edges.toArray()) +
                 '}';
     }
 
@@ -140,8 +184,17 @@ public class LTS {
      *
      * @return A set of integers in the range [0, |V| - 1].
      */
-    public Set<Integer> S() {
-        return IntStream.range(0, numberOfStates).boxed().collect(Collectors.toSet());
+    public StateSet S() {
+        return BitStateSet.full(numberOfStates);
+    }
+
+    /**
+     * Generate a set that can hold the states found in the graph, but contains none of them.
+     *
+     * @return An empty set of states.
+     */
+    public StateSet emptySet() {
+        return new BitStateSet(numberOfStates);
     }
 
     /**
@@ -154,19 +207,25 @@ public class LTS {
 
         specification.append("act\n");
         specification.append("\t");
-        specification.append(labelToEdge.keySet().stream().collect(Collectors.joining(", "))).append(";\n");
+        specification.append(String.join(", ", labels)).append(";\n");
         specification.append("proc\n");
 
-        // Are there states that do not have any outgoing transitions?
-
-        for(Integer start : S()) {
+        for(int start = 0; start < numberOfStates; start++) {
             specification.append("\tS").append(start).append(" = ");
 
-            if(startToEdge.containsKey(start)) {
-                specification.append(startToEdge.get(start).stream()
-                        .map(e -> e.label + ".S" + e.endNode).collect(Collectors.joining(" + "))).append(";\n");
-            } else {
+            // Gather the outgoing transitions of the state, over all labels.
+            List<String> transitions = new ArrayList<>();
+            for(int label = 0; label < labels.size(); label++) {
+                for(int i = 0, n = getDegree(start, label); i < n; i++) {
+                    transitions.add(labels.get(label) + ".S" + getEndpoint(start, label, i));
+                }
+            }
+
+            // States that do not have any outgoing transitions are deadlocks.
+            if(transitions.isEmpty()) {
                 specification.append("delta;\n");
+            } else {
+                specification.append(String.join(" + ", transitions)).append(";\n");
             }
         }
 
@@ -0,0 +1,265 @@
+package s2imf35.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact binary format for labelled transition systems, which can be loaded much faster than the Aldebaran format.
+ * The file consists of a header, the label table and the transitions of each label in the CSR format:
+ *
+ *   magic, version, first state, number of transitions, number of states, number of labels, number of edges
+ *   for each label: the length of its UTF-8 encoding and the encoding itself
+ *   for each label, for each state s: the degree d of s, followed by d end points
+ *
+ * The magic is a 4-byte integer, and all other numbers are unsigned variable length integers with 7 bits per byte. The
+ * end points of a state are stored as the difference with the previous end point, starting at s itself, in zigzag
+ * encoding. Transitions between nearby states therefore mostly take a single byte.
+ */
+public class LTSSnapshot {
+    // The file extension of snapshots.
+    public static final String EXTENSION = ".ltsb";
+
+    // The first bytes of every snapshot, "LTSB" in ASCII.
+    private static final int MAGIC = 0x4C545342;
+
+    // The version of the format.
+    private static final int VERSION = 1;
+
+    /**
+     * Write the given graph to a snapshot file.
+     *
+     * @param graph The graph to store.
+     * @param path The location of the snapshot.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(LTS graph, Path path) throws IOException {
+        int n = graph.numberOfStates, labels = graph.numberOfLabels();
+        int m = 0;
+        for(int label = 0; label < labels; label++) {
+            for(int s = 0; s < n; s++) {
+                m += graph.getDegree(s, label);
+            }
+        }
+
+        try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+            for(int shift = 24; shift >= 0; shift -= 8) {
+                out.write(MAGIC >>> shift);
+            }
+            writeVarint(out, VERSION);
+            writeVarint(out, graph.firstState);
+            writeVarint(out, graph.numberOfTransitions);
+            writeVarint(out, n);
+            writeVarint(out, labels);
+            writeVarint(out, m);
+
+            for(String label : graph.getLabels()) {
+                byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, bytes.length);
+                out.write(bytes);
+            }
+
+            for(int label = 0; label < labels; label++) {
+                for(int s = 0; s < n; s++) {
+                    int d = graph.getDegree(s, label);
+                    writeVarint(out, d);
+                    for(int i = 0, previous = s; i < d; i++) {
+                        int t = graph.getEndpoint(s, label, i);
+                        writeVarint(out, (t - previous) << 1 ^ (t - previous) >> 31);
+                        previous = t;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the graph in the given snapshot file. The file is memory mapped and decoded in a single pass.
+     *
+     * @param path The location of the snapshot.
+     * @return A labelled transition system in the CSR format representing the stored graph.
+     * @throws IOException If the file cannot be found or read, or is not a valid snapshot.
+     */
+    public static CompressedLTS read(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Header header = new Header(buffer, path);
+
+            // Decode the transitions into edge arrays, in the order in which they were stored.
+            int m = header.numberOfEdges;
+            int[] startStates = new int[m], labelIds = new int[m], endStates = new int[m];
+            int edges = 0;
+            for(int label = 0; label < header.labels.size(); label++) {
+                for(int s = 0; s < header.numberOfStates; s++) {
+                    int d = header.readDegree(buffer, m - edges);
+                    for(int i = 0, previous = s; i < d; i++) {
+                        previous = readEndpoint(buffer, previous);
+                        startStates[edges] = s;
+                        labelIds[edges] = label;
+                        endStates[edges++] = previous;
+                    }
+                }
+            }
+
+            return new CompressedLTS(header.firstState, header.numberOfTransitions, header.numberOfStates,
+                    header.labels, startStates, labelIds, endStates);
+        } catch(BufferUnderflowException e) {
+            throw new IOException("The snapshot " + path + " is truncated.", e);
+        }
+    }
+
+    /**
+     * Read the graph in the given snapshot file into a graph that is stored outside of the Java heap. The transitions
+     * are decoded directly into the off-heap arrays, such that the graph never occupies the heap.
+     *
+     * @param path The location of the snapshot.
+     * @param file The file the arrays of the graph are mapped into, or null if they should be stored in direct buffers.
+     * @return A labelled transition system with off-heap storage representing the stored graph.
+     * @throws IOException If the snapshot cannot be found or read or is not valid, or the file cannot be mapped.
+     */
+    public static OffHeapLTS readOffHeap(Path path, Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            OffHeapLTS.Storage storage = new OffHeapLTS.Storage(file)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Header header = new Header(buffer, path);
+
+            // The rows are stored in the order of the CSR format, so they are decoded in place.
+            int n = header.numberOfStates, m = header.numberOfEdges;
+            OffHeapIntArray offsets = storage.allocate((long) header.labels.size() * (n + 1));
+            OffHeapIntArray targets = storage.allocate(m);
+            int edges = 0;
+            for(int label = 0; label < header.labels.size(); label++) {
+                for(int s = 0; s < n; s++) {
+                    offsets.set(label * (n + 1L) + s, edges);
+                    int d = header.readDegree(buffer, m - edges);
+                    for(int i = 0, previous = s; i < d; i++) {
+                        previous = readEndpoint(buffer, previous);
+                        targets.set(edges++, previous);
+                    }
+                }
+                offsets.set(label * (n + 1L) + n, edges);
+            }
+
+            return new OffHeapLTS(header.firstState, header.numberOfTransitions, n, header.labels, offsets, targets,
+                    storage);
+        } catch(BufferUnderflowException e) {
+            throw new IOException("The snapshot " + path + " is truncated.", e);
+        }
+    }
+
+    /**
+     * Read the next end point of a state.
+     *
+     * @param buffer The buffer to read from.
+     * @param previous The previous end point of the state, or the state itself for its first end point.
+     * @return The end point.
+     */
+    private static int readEndpoint(ByteBuffer buffer, int previous) {
+        int delta = readVarint(buffer);
+        return previous + (delta >>> 1 ^ -(delta & 1));
+    }
+
+    /**
+     * Write a non-negative integer with 7 bits per byte, where the highest bit marks that more bytes follow.
+     *
+     * @param out The stream to write to.
+     * @param value The value to write.
+     * @throws IOException If the stream cannot be written to.
+     */
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while((value & ~0x7F) != 0) {
+            out.write(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Read an integer written by {@link #writeVarint(OutputStream, int)}.
+     *
+     * @param buffer The buffer to read from.
+     * @return The value that was read.
+     */
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for(int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if(b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * The header and label table of a snapshot.
+     */
+    private static class Header {
+        // The generic information of the graph.
+        private final int firstState, numberOfTransitions, numberOfStates;
+
+        // The number of edges stored in the snapshot.
+        private final int numberOfEdges;
+
+        // The labels of the graph, in the order of their id.
+        private final List<String> labels;
+
+        // The location of the snapshot.
+        private final Path path;
+
+        /**
+         * Read the header and label table at the start of the given buffer.
+         *
+         * @param buffer The buffer holding the snapshot.
+         * @param path The location of the snapshot.
+         * @throws IOException If the buffer does not contain a snapshot of a supported version.
+         */
+        private Header(ByteBuffer buffer, Path path) throws IOException {
+            this.path = path;
+            if(buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+                throw new IOException("The file " + path + " is not a graph snapshot.");
+            }
+            int version = readVarint(buffer);
+            if(version != VERSION) {
+                throw new IOException("The snapshot " + path + " has the unsupported version " + version + ".");
+            }
+            firstState = readVarint(buffer);
+            numberOfTransitions = readVarint(buffer);
+            numberOfStates = readVarint(buffer);
+            int numberOfLabels = readVarint(buffer);
+            numberOfEdges = readVarint(buffer);
+
+            labels = new ArrayList<>(numberOfLabels);
+            for(int label = 0; label < numberOfLabels; label++) {
+                byte[] bytes = new byte[readVarint(buffer)];
+                buffer.get(bytes);
+                labels.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+
+        /**
+         * Read the degree of the next state.
+         *
+         * @param buffer The buffer to read from.
+         * @param remaining The number of edges that have not been read yet.
+         * @return The degree of the state.
+         * @throws IOException If the degree exceeds the number of remaining edges.
+         */
+        private int readDegree(ByteBuffer buffer, int remaining) throws IOException {
+            int d = readVarint(buffer);
+            if(d < 0 || d > remaining) {
+                throw new IOException("The snapshot " + path + " contains more edges than its header states.");
+            }
+            return d;
+        }
+    }
+}
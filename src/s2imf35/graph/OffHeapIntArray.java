@@ -0,0 +1,71 @@
+package s2imf35.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * An array of integers stored outside of the Java heap, either in direct byte buffers or in a memory mapped region of
+ * a file. A single buffer can hold at most 2GB, so the array is split into segments of 2^28 integers, which allows
+ * arrays of more than 2^31 bytes.
+ */
+final class OffHeapIntArray {
+    // The number of integers per segment, as a power of two.
+    private static final int SEGMENT_SHIFT = 28;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    // The number of integers in the array.
+    final long length;
+
+    // The segments, of which all but the last hold exactly 2^28 integers.
+    private final ByteBuffer[] segments;
+
+    /**
+     * Create an array of the given length filled with zeros.
+     *
+     * @param length The number of integers in the array.
+     * @param channel The file the array is mapped into, or null if the array is stored in direct buffers.
+     * @param position The offset in the file at which the array starts, which is ignored without a file.
+     * @throws IOException If the file cannot be mapped.
+     */
+    OffHeapIntArray(long length, FileChannel channel, long position) throws IOException {
+        this.length = length;
+        this.segments = new ByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+        for(int i = 0; i < segments.length; i++) {
+            long bytes = 4 * Math.min(1L << SEGMENT_SHIFT, length - ((long) i << SEGMENT_SHIFT));
+            ByteBuffer segment = channel == null ? ByteBuffer.allocateDirect((int) bytes) :
+                    channel.map(FileChannel.MapMode.READ_WRITE, position + ((long) i << (SEGMENT_SHIFT + 2)), bytes);
+            segments[i] = segment.order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Get the number of bytes the array occupies.
+     *
+     * @return Four times the length of the array.
+     */
+    long bytes() {
+        return 4 * length;
+    }
+
+    /**
+     * Get the integer at the given index.
+     *
+     * @param index The index, in the range [0, length - 1].
+     * @return The integer at the index.
+     */
+    int get(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].getInt((int) (index & SEGMENT_MASK) << 2);
+    }
+
+    /**
+     * Store an integer at the given index.
+     *
+     * @param index The index, in the range [0, length - 1].
+     * @param value The integer to store.
+     */
+    void set(long index, int value) {
+        segments[(int) (index >>> SEGMENT_SHIFT)].putInt((int) (index & SEGMENT_MASK) << 2, value);
+    }
+}
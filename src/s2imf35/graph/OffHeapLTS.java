@@ -0,0 +1,208 @@
+package s2imf35.graph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A labelled transition system in the compressed sparse row (CSR) format, of which the arrays are stored outside of the
+ * Java heap. The transitions of all labels are stored in a single targets array, in which the end points of the
+ * transitions starting in state s with label l are in the range [offsets[i], offsets[i + 1]) for i = l * (n + 1) + s.
+ * The predecessors are stored in the same way, in the reverse offsets and sources arrays.
+ *
+ * The arrays are either held in direct buffers or mapped into a file, in which case the operating system moves them
+ * between the page cache and the disk as needed. Either way the heap only holds the label dictionary. Direct buffers
+ * count towards the limit set by -XX:MaxDirectMemorySize, which defaults to the maximum heap size set by -Xmx, so
+ * graphs that are larger than the heap should be mapped into a file.
+ */
+public class OffHeapLTS extends LTS {
+    // The number of offsets of each label.
+    private final long stride;
+
+    // The offsets and end points of the transitions.
+    private final OffHeapIntArray offsets;
+    private final OffHeapIntArray targets;
+
+    // The offsets and start points of the transitions, by their end point.
+    private final OffHeapIntArray reverseOffsets;
+    private final OffHeapIntArray sources;
+
+    /**
+     * Create a labelled transition system from the given forward CSR arrays, and compute the reverse CSR arrays.
+     *
+     * @param firstState The initial state of the system.
+     * @param numberOfTransitions The number of transitions in the system.
+     * @param numberOfStates The number of states in the system.
+     * @param labels The labels of the transitions, in the order of their id.
+     * @param offsets The offsets of the transitions of each label and state, in one array.
+     * @param targets The end points of the transitions.
+     * @param storage The storage in which the reverse arrays are allocated.
+     * @throws IOException If the storage cannot be extended.
+     */
+    OffHeapLTS(int firstState, int numberOfTransitions, int numberOfStates, List<String> labels,
+               OffHeapIntArray offsets, OffHeapIntArray targets, Storage storage) throws IOException {
+        super(firstState, numberOfTransitions, numberOfStates);
+        for(String label : labels) {
+            internLabel(label);
+        }
+        this.stride = numberOfStates + 1L;
+        this.offsets = offsets;
+        this.targets = targets;
+
+        // Count the transitions per label and end point, and convert the counts to offsets.
+        long size = offsets.length;
+        reverseOffsets = storage.allocate(size);
+        for(int label = 0; label < numberOfLabels(); label++) {
+            for(int i = offsets.get(label * stride), end = offsets.get(label * stride + numberOfStates); i < end; i++) {
+                long index = label * stride + targets.get(i) + 1;
+                reverseOffsets.set(index, reverseOffsets.get(index) + 1);
+            }
+        }
+        for(long i = 1; i < size; i++) {
+            reverseOffsets.set(i, reverseOffsets.get(i) + reverseOffsets.get(i - 1));
+        }
+
+        // Place the start points in their slots, using the offsets as cursors, and shift the cursors back afterwards.
+        sources = storage.allocate(targets.length);
+        for(int label = 0; label < numberOfLabels(); label++) {
+            for(int s = 0; s < numberOfStates; s++) {
+                for(int i = offsets.get(label * stride + s), end = offsets.get(label * stride + s + 1); i < end; i++) {
+                    long index = label * stride + targets.get(i);
+                    int position = reverseOffsets.get(index);
+                    sources.set(position, s);
+                    reverseOffsets.set(index, position + 1);
+                }
+            }
+        }
+        for(long i = size - 1; i > 0; i--) {
+            reverseOffsets.set(i, reverseOffsets.get(i - 1));
+        }
+        reverseOffsets.set(0, 0);
+    }
+
+    /**
+     * Copy the given graph to a labelled transition system with off-heap storage. The graph is read through its
+     * interface, so the given graph must fit on the heap, along with any indices it builds on demand. Graph files
+     * should be read with {@link AldebaranReader#readOffHeap(Path, Path)} instead.
+     *
+     * @param graph The graph to copy.
+     * @param file The file the arrays are mapped into, or null if they should be stored in direct buffers.
+     * @return The copy of the graph.
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    public static OffHeapLTS copyOf(LTS graph, Path file) throws IOException {
+        int n = graph.numberOfStates, labels = graph.numberOfLabels();
+        try(Storage storage = new Storage(file)) {
+            OffHeapIntArray offsets = storage.allocate((long) labels * (n + 1));
+            long m = 0;
+            for(int label = 0; label < labels; label++) {
+                for(int s = 0; s < n; s++) {
+                    offsets.set(label * (n + 1L) + s, (int) m);
+                    m += graph.getDegree(s, label);
+                }
+                offsets.set(label * (n + 1L) + n, (int) m);
+            }
+
+            if(m > Integer.MAX_VALUE) {
+                throw new RuntimeException("The graph has more than " + Integer.MAX_VALUE + " transitions.");
+            }
+
+            OffHeapIntArray targets = storage.allocate(m);
+            for(int label = 0; label < labels; label++) {
+                for(int s = 0; s < n; s++) {
+                    long from = offsets.get(label * (n + 1L) + s);
+                    for(int i = 0, d = graph.getDegree(s, label); i < d; i++) {
+                        targets.set(from + i, graph.getEndpoint(s, label, i));
+                    }
+                }
+            }
+
+            return new OffHeapLTS(graph.firstState, graph.numberOfTransitions, n, graph.getLabels(), offsets, targets,
+                    storage);
+        }
+    }
+
+    @Override
+    public int getDegree(int node, int label) {
+        long index = label * stride + node;
+        return offsets.get(index + 1) - offsets.get(index);
+    }
+
+    @Override
+    public int getEndpoint(int node, int label, int index) {
+        return targets.get(offsets.get(label * stride + node) + index);
+    }
+
+    @Override
+    public int getInDegree(int node, int label) {
+        long index = label * stride + node;
+        return reverseOffsets.get(index + 1) - reverseOffsets.get(index);
+    }
+
+    @Override
+    public int getStartpoint(int node, int label, int index) {
+        return sources.get(reverseOffsets.get(label * stride + node) + index);
+    }
+
+    @Override
+    public void forEachTransition(TransitionConsumer consumer) {
+        for(int label = 0; label < numberOfLabels(); label++) {
+            for(int s = 0; s < numberOfStates; s++) {
+                for(int i = offsets.get(label * stride + s), end = offsets.get(label * stride + s + 1); i < end; i++) {
+                    consumer.accept(s, label, targets.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * The place in which the arrays of a graph are allocated: a file into which they are mapped one after another, or
+     * direct buffers if there is no file.
+     */
+    static class Storage implements Closeable {
+        // The file the arrays are mapped into, null if they are stored in direct buffers.
+        private final FileChannel channel;
+
+        // The offset in the file at which the next array is mapped.
+        private long position = 0;
+
+        /**
+         * Create a storage in the given file, which is overwritten.
+         *
+         * @param file The file the arrays are mapped into, or null if they should be stored in direct buffers.
+         * @throws IOException If the file cannot be created.
+         */
+        Storage(Path file) throws IOException {
+            this.channel = file == null ? null : FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Allocate an array of integers, which is filled with zeros.
+         *
+         * @param length The number of integers in the array.
+         * @return The array.
+         * @throws IOException If the file cannot be extended.
+         */
+        OffHeapIntArray allocate(long length) throws IOException {
+            OffHeapIntArray array = new OffHeapIntArray(length, channel, position);
+            position += array.bytes();
+            return array;
+        }
+
+        /**
+         * Close the file, whose mapped regions remain valid until they are garbage collected.
+         *
+         * @throws IOException If the file cannot be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            if(channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package s2imf35.graph;
+
+import java.util.Arrays;
+
+/**
+ * A class representing the quotient of a labelled transition system under strong bisimulation, in which every state is
+ * an equivalence class of states of the original system. Bisimilar states satisfy the same modal mu-calculus formulae,
+ * so a formula can be evaluated on the quotient and the result mapped back to the original states.
+ *
+ * The partition is computed by signature refinement: the signature of a state is the set of (label, block) pairs of
+ * its transitions, and the states of a block with different signatures are split. As in the algorithm of Paige and
+ * Tarjan, only the blocks with a transition to a state that moved to another block have to be split again, and the
+ * largest part of a split block keeps its number, such that its states do not count as moved.
+ */
+public class Quotient {
+    // The minimized graph, in which the states are the blocks of the partition.
+    public final LTS graph;
+
+    // The block of each state of the original graph.
+    private final int[] block;
+
+    /**
+     * Create a quotient with the given minimized graph and partition.
+     *
+     * @param graph The minimized graph.
+     * @param block The block of each state of the original graph.
+     */
+    private Quotient(LTS graph, int[] block) {
+        this.graph = graph;
+        this.block = block;
+    }
+
+    /**
+     * Compute the quotient of the given graph under strong bisimulation.
+     *
+     * @param graph The graph to minimize.
+     * @return The quotient of the graph.
+     */
+    public static Quotient minimize(LTS graph) {
+        return new Refiner(graph).refine();
+    }
+
+    /**
+     * Map a set of states of the minimized graph back to the states of the original graph.
+     *
+     * @param states A set of blocks.
+     * @return The set of states of the original graph that are in one of the blocks.
+     */
+    public StateSet expand(StateSet states) {
+        StateSet result = new BitStateSet(block.length);
+        for(int s = 0; s < block.length; s++) {
+            if(states.contains(block[s])) {
+                result.add(s);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A class holding the partition of the states while it is refined.
+     */
+    private static class Refiner {
+        // The graph that is minimized.
+        private final LTS graph;
+
+        // The block of each state.
+        private final int[] block;
+
+        // The states ordered by block, where the states of block b are in the range [first[b], end[b]).
+        private final int[] elements;
+        private final int[] first;
+        private final int[] end;
+        private int blocks = 1;
+
+        // The blocks that have to be split in the current and next round, and whether a block is in the next round.
+        private int[] current;
+        private int[] next;
+        private int size = 0;
+        private final boolean[] affected;
+
+        // The states that moved to a new block in the current round.
+        private final int[] moved;
+        private int numberOfMoved = 0;
+
+        // The signatures of the states of the block that is split, in the range [offsets[i], offsets[i + 1]) for the
+        // i-th state of the block.
+        private long[] signatures = new long[16];
+        private int[] offsets = new int[16];
+
+        // The part of the block that is split that each of its states belongs to.
+        private int[] parts = new int[16];
+
+        /**
+         * Create a refiner in which all states are in the same block.
+         *
+         * @param graph The graph to minimize.
+         */
+        private Refiner(LTS graph) {
+            int n = graph.numberOfStates;
+            this.graph = graph;
+            this.block = new int[n];
+            this.elements = new int[n];
+            for(int s = 0; s < n; s++) {
+                elements[s] = s;
+            }
+            this.first = new int[Math.max(1, n)];
+            this.end = new int[Math.max(1, n)];
+            this.end[0] = n;
+            this.current = new int[Math.max(1, n)];
+            this.next = new int[Math.max(1, n)];
+            this.affected = new boolean[Math.max(1, n)];
+            this.moved = new int[n];
+        }
+
+        /**
+         * Split the blocks until all states in each block have the same signature, and create the quotient.
+         *
+         * @return The quotient of the graph.
+         */
+        private Quotient refine() {
+            next[size++] = 0;
+            while(size > 0) {
+                // Swap the lists of blocks, such that the blocks marked in the previous round are split now.
+                int[] blocksToSplit = next;
+                int count = size;
+                next = current;
+                current = blocksToSplit;
+                size = 0;
+                for(int i = 0; i < count; i++) {
+                    affected[current[i]] = false;
+                }
+
+                numberOfMoved = 0;
+                for(int i = 0; i < count; i++) {
+                    split(current[i]);
+                }
+
+                // Mark the blocks of the predecessors of the moved states.
+                for(int j = 0; j < numberOfMoved; j++) {
+                    int t = moved[j];
+                    for(int label = 0; label < graph.numberOfLabels(); label++) {
+                        for(int i = 0, d = graph.getInDegree(t, label); i < d; i++) {
+                            int b = block[graph.getStartpoint(t, label, i)];
+                            if(!affected[b]) {
+                                affected[b] = true;
+                                next[size++] = b;
+                            }
+                        }
+                    }
+                }
+            }
+            return new Quotient(quotientGraph(), block);
+        }
+
+        /**
+         * Split the given block into parts with equal signatures. The largest part keeps the number of the block, and
+         * the states of the other parts are moved to new blocks.
+         *
+         * @param b The block to split.
+         */
+        private void split(int b) {
+            int from = first[b], n = end[b] - first[b];
+            if(n <= 1) {
+                return;
+            }
+
+            // Compute the signature of each state of the block.
+            if(offsets.length <= n) {
+                offsets = new int[2 * n + 1];
+                parts = new int[2 * n];
+            }
+            int length = 0;
+            for(int i = 0; i < n; i++) {
+                offsets[i] = length;
+                length = signature(elements[from + i], length);
+            }
+            offsets[n] = length;
+
+            // Find the part of each state with an open addressing hash table holding the first state of each part.
+            int capacity = Integer.highestOneBit(2 * n - 1) << 1;
+            int mask = capacity - 1;
+            int[] table = new int[capacity];
+            Arrays.fill(table, -1);
+            int numberOfParts = 0;
+            for(int i = 0; i < n; i++) {
+                int hash = 0;
+                for(int j = offsets[i]; j < offsets[i + 1]; j++) {
+                    hash = 31 * hash + Long.hashCode(signatures[j]);
+                }
+                int slot = (hash ^ (hash >>> 16)) & mask;
+                while(table[slot] != -1 && !equal(table[slot], i)) {
+                    slot = (slot + 1) & mask;
+                }
+                if(table[slot] == -1) {
+                    table[slot] = i;
+                    parts[i] = numberOfParts++;
+                } else {
+                    parts[i] = parts[table[slot]];
+                }
+            }
+            if(numberOfParts == 1) {
+                return;
+            }
+
+            // Order the states of the block by part with a counting sort, and find the largest part.
+            int[] starts = new int[numberOfParts + 1];
+            for(int i = 0; i < n; i++) {
+                starts[parts[i] + 1]++;
+            }
+            int largest = 0;
+            for(int p = 0; p < numberOfParts; p++) {
+                if(starts[p + 1] > starts[largest + 1]) {
+                    largest = p;
+                }
+                starts[p + 1] += starts[p];
+            }
+            int[] positions = Arrays.copyOf(starts, numberOfParts);
+            int[] states = Arrays.copyOfRange(elements, from, from + n);
+            for(int i = 0; i < n; i++) {
+                elements[from + positions[parts[i]]++] = states[i];
+            }
+
+            // Assign the blocks to the parts.
+            for(int p = 0; p < numberOfParts; p++) {
+                int c = p == largest ? b : blocks++;
+                first[c] = from + starts[p];
+                end[c] = from + starts[p + 1];
+                if(c == b) {
+                    continue;
+                }
+                for(int i = first[c]; i < end[c]; i++) {
+                    block[elements[i]] = c;
+                    moved[numberOfMoved++] = elements[i];
+                }
+            }
+        }
+
+        /**
+         * Store the sorted and duplicate free (label, block) pairs of the transitions of the given state.
+         *
+         * @param s The state.
+         * @param from The index in the signature array at which the first pair is stored.
+         * @return The index after the last pair.
+         */
+        private int signature(int s, int from) {
+            int size = from;
+            for(int label = 0; label < graph.numberOfLabels(); label++) {
+                int d = graph.getDegree(s, label);
+                if(size + d > signatures.length) {
+                    signatures = Arrays.copyOf(signatures, Math.max(2 * signatures.length, size + d));
+                }
+                for(int i = 0; i < d; i++) {
+                    signatures[size++] = (long) label << 32 | block[graph.getEndpoint(s, label, i)];
+                }
+            }
+            Arrays.sort(signatures, from, size);
+
+            // Remove the duplicates by moving the distinct pairs to the front.
+            int end = from;
+            for(int i = from; i < size; i++) {
+                if(end == from || signatures[end - 1] != signatures[i]) {
+                    signatures[end++] = signatures[i];
+                }
+            }
+            return end;
+        }
+
+        /**
+         * Check whether two states of the block that is split have the same signature.
+         *
+         * @param i The index of the first state within the block.
+         * @param j The index of the second state within the block.
+         * @return True if the signatures are equal, false otherwise.
+         */
+        private boolean equal(int i, int j) {
+            if(offsets[i + 1] - offsets[i] != offsets[j + 1] - offsets[j]) {
+                return false;
+            }
+            for(int x = offsets[i], y = offsets[j]; x < offsets[i + 1]; x++, y++) {
+                if(signatures[x] != signatures[y]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Create the graph in which the states are the blocks of the partition.
+         *
+         * @return The minimized graph.
+         */
+        private LTS quotientGraph() {
+            // The transitions of each block are the (label, block) pairs of any of its states.
+            int[] blockOffsets = new int[blocks + 1];
+            for(int b = 0; b < blocks; b++) {
+                blockOffsets[b + 1] = signature(elements[first[b]], blockOffsets[b]);
+            }
+
+            int m = blockOffsets[blocks];
+            int[] startStates = new int[m], labelIds = new int[m], endStates = new int[m];
+            for(int b = 0; b < blocks; b++) {
+                for(int i = blockOffsets[b]; i < blockOffsets[b + 1]; i++) {
+                    startStates[i] = b;
+                    labelIds[i] = (int) (signatures[i] >>> 32);
+                    endStates[i] = (int) signatures[i];
+                }
+            }
+
+            return new CompressedLTS(block[graph.firstState], m, blocks, graph.getLabels(),
+                    startStates, labelIds, endStates);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package s2imf35.graph;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * An abstract class representing a set of states within a labelled transition system. States are identified by the
+ * dense integers in the range [0, |V| - 1], which allows implementations to avoid boxing altogether.
+ */
+public abstract class StateSet {
+    /**
+     * Check whether the given state is part of the set.
+     *
+     * @param state The state to look for.
+     * @return True if the state is in the set, false otherwise.
+     */
+    public abstract boolean contains(int state);
+
+    /**
+     * Add the given state to the set.
+     *
+     * @param state The state to add.
+     */
+    public abstract void add(int state);
+
+    /**
+     * Remove the given state from the set.
+     *
+     * @param state The state to remove.
+     */
+    public abstract void remove(int state);
+
+    /**
+     * Find the first state in the set that is greater than or equal to the given state.
+     *
+     * @param state The state to start searching from.
+     * @return The first state in the set that is at least the given state, or -1 if no such state exists.
+     */
+    public abstract int nextState(int state);
+
+    /**
+     * Get the number of states in the set.
+     *
+     * @return The cardinality of the set.
+     */
+    public abstract int size();
+
+    /**
+     * Check whether the set contains no states.
+     *
+     * @return True if the set is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return nextState(0) == -1;
+    }
+
+    /**
+     * Remove all states from the set that are not in the given set, i.e. take the intersection.
+     *
+     * @param other The set to intersect with.
+     */
+    public void retainAll(StateSet other) {
+        for(int state = nextState(0); state != -1; state = nextState(state + 1)) {
+            if(!other.contains(state)) {
+                remove(state);
+            }
+        }
+    }
+
+    /**
+     * Add all states in the given set to this set, i.e. take the union.
+     *
+     * @param other The set to unite with.
+     */
+    public void addAll(StateSet other) {
+        for(int state = other.nextState(0); state != -1; state = other.nextState(state + 1)) {
+            add(state);
+        }
+    }
+
+    /**
+     * Remove all states in the given set from this set, i.e. take the difference.
+     *
+     * @param other The set of states to remove.
+     */
+    public void removeAll(StateSet other) {
+        for(int state = other.nextState(0); state != -1; state = other.nextState(state + 1)) {
+            remove(state);
+        }
+    }
+
+    /**
+     * Check whether all states in the given set are part of this set.
+     *
+     * @param other The set that should be contained in this set.
+     * @return True if the given set is a subset of this set, false otherwise.
+     */
+    public boolean containsAll(StateSet other) {
+        for(int state = other.nextState(0); state != -1; state = other.nextState(state + 1)) {
+            if(!contains(state)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replace the contents of the set by its complement, with respect to the states of the graph.
+     */
+    public abstract void complement();
+
+    /**
+     * Create an independent copy of the set.
+     *
+     * @return A set containing the same states, which can be altered without affecting this set.
+     */
+    public abstract StateSet copy();
+
+    /**
+     * Get a stream of all states within the set, in ascending order.
+     *
+     * @return A stream over the states in the set.
+     */
+    public IntStream stream() {
+        return IntStream.iterate(nextState(0), state -> nextState(state + 1)).limit(size());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) {
+            return true;
+        }
+        if(!(o instanceof StateSet)) {
+            return false;
+        }
+
+        StateSet other = (StateSet) o;
+        return size() == other.size() && containsAll(other);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for(int state = nextState(0); state != -1; state = nextState(state + 1)) {
+            hash += state;
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return stream().mapToObj(String::valueOf).collect(Collectors.joining(", ", "[", "]"));
+    }
+}
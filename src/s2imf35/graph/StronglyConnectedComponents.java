@@ -0,0 +1,143 @@
+package s2imf35.graph;
+
+import java.util.Arrays;
+
+/**
+ * The strongly connected components of a labelled transition system, restricted to the transitions with the given
+ * labels. The components are computed with Tarjan's algorithm, using an explicit stack such that long paths do not
+ * overflow the call stack, and are numbered in the order in which they are completed. Every transition therefore goes
+ * to a component with the same or a lower number, so the components are in reverse topological order.
+ */
+public class StronglyConnectedComponents {
+    // The number of components.
+    public final int count;
+
+    // The states grouped by component, where the states of component c are in the range [offsets[c], offsets[c + 1]).
+    private final int[] states;
+    private final int[] offsets;
+
+    // The component of each state.
+    private final int[] component;
+
+    /**
+     * Compute the strongly connected components of the given graph.
+     *
+     * @param graph The graph to decompose.
+     * @param labels The ids of the labels of the transitions that connect the states.
+     */
+    public StronglyConnectedComponents(LTS graph, int[] labels) {
+        int n = graph.numberOfStates;
+        component = new int[n];
+        states = new int[n];
+
+        // The index at which each state was discovered, or 0 if it has not been, and the lowest index it can reach.
+        int[] index = new int[n], lowLink = new int[n];
+
+        // The states that have not been assigned to a component yet, and whether a state is on that stack.
+        int[] stack = new int[n];
+        boolean[] onStack = new boolean[n];
+        int stackSize = 0;
+
+        // The depth first search path, with the position of the next label and transition of each state on it.
+        int[] path = new int[n], nextLabel = new int[n], nextEdge = new int[n];
+
+        int discovered = 0, count = 0, assigned = 0;
+        int[] ends = new int[n + 1];
+        for(int root = 0; root < n; root++) {
+            if(index[root] != 0) {
+                continue;
+            }
+
+            int depth = 0;
+            path[0] = root;
+            index[root] = lowLink[root] = ++discovered;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            nextLabel[0] = nextEdge[0] = 0;
+
+            while(depth >= 0) {
+                int s = path[depth];
+
+                // Find the next transition of the state that leads to an unvisited state.
+                int t = -1;
+                while(t == -1 && nextLabel[depth] < labels.length) {
+                    int label = labels[nextLabel[depth]];
+                    if(nextEdge[depth] < graph.getDegree(s, label)) {
+                        int u = graph.getEndpoint(s, label, nextEdge[depth]++);
+                        if(index[u] == 0) {
+                            t = u;
+                        } else if(onStack[u]) {
+                            lowLink[s] = Math.min(lowLink[s], index[u]);
+                        }
+                    } else {
+                        nextLabel[depth]++;
+                        nextEdge[depth] = 0;
+                    }
+                }
+
+                if(t != -1) {
+                    // Descend into the unvisited state.
+                    depth++;
+                    path[depth] = t;
+                    nextLabel[depth] = nextEdge[depth] = 0;
+                    index[t] = lowLink[t] = ++discovered;
+                    stack[stackSize++] = t;
+                    onStack[t] = true;
+                    continue;
+                }
+
+                // All transitions are explored. Pop the component if the state is its root.
+                if(lowLink[s] == index[s]) {
+                    int u;
+                    do {
+                        u = stack[--stackSize];
+                        onStack[u] = false;
+                        component[u] = count;
+                        states[assigned++] = u;
+                    } while(u != s);
+                    ends[++count] = assigned;
+                }
+
+                depth--;
+                if(depth >= 0) {
+                    int parent = path[depth];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[s]);
+                }
+            }
+        }
+
+        this.count = count;
+        this.offsets = Arrays.copyOf(ends, count + 1);
+    }
+
+    /**
+     * Get the number of states in the given component.
+     *
+     * @param c The number of the component.
+     * @return The size of the component.
+     */
+    public int size(int c) {
+        return offsets[c + 1] - offsets[c];
+    }
+
+    /**
+     * Get a state of the given component.
+     *
+     * @param c The number of the component.
+     * @param i The index of the state within the component, in the range [0, size(c) - 1].
+     * @return The state.
+     */
+    public int getState(int c, int i) {
+        return states[offsets[c] + i];
+    }
+
+    /**
+     * Get the component the given state belongs to.
+     *
+     * @param state The state.
+     * @return The number of the component of the state.
+     */
+    public int getComponent(int state) {
+        return component[state];
+    }
+}
@@ -0,0 +1,370 @@
+package s2imf35.incremental;
+
+import s2imf35.PerformanceCounter;
+import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
+import s2imf35.operator.*;
+
+import java.util.*;
+
+import static s2imf35.operator.FormulaNode.*;
+
+/**
+ * A solver that evaluates fixpoints incrementally. Instead of re-evaluating the body of a fixpoint from scratch in
+ * every iteration, only the states that are added (mu) or removed (nu) are propagated through the parse tree, using a
+ * worklist of (node, state) pairs. Nested fixpoints with the same sign are solved simultaneously, whereas nested
+ * fixpoints with the opposite sign are re-evaluated from scratch whenever one of their free variables changes.
+ * Alternation-free formulas are thereby solved in time linear in the size of the formula and the graph.
+ */
+public class IncrementalSolver {
+    // The graph the formula is evaluated on.
+    private final LTS graph;
+
+    // The performance counter that measures the performance of the algorithm.
+    private final PerformanceCounter counter;
+
+    /**
+     * A node in the flattened parse tree, which holds the current evaluation of the sub-formula.
+     */
+    private static class Node extends FormulaNode<Node> {
+        // The fixpoint that is solved simultaneously with this node, which is the outermost binder of the same sign
+        // that can be reached without passing a binder of the opposite sign.
+        Node block;
+
+        // The recursion variables bound by the binder.
+        final List<Node> occurrences = new ArrayList<>();
+
+        // The binders of the opposite sign within the block that have to be re-evaluated when the binder changes.
+        final List<Node> dependents = new ArrayList<>();
+
+        // The current evaluation of the sub-formula.
+        StateSet value;
+
+        // For each state, the number of unsatisfied (box) or satisfied (diamond) successors.
+        int[] count;
+
+        Node(int type, AbstractComponent component) {
+            super(type, component);
+        }
+    }
+
+    /**
+     * Create an incremental solver for the given graph.
+     *
+     * @param graph The graph the formula should be applied to.
+     * @param counter A performance counter that measures the performance of the algorithm.
+     */
+    public IncrementalSolver(LTS graph, PerformanceCounter counter) {
+        this.graph = graph;
+        this.counter = counter;
+    }
+
+    /**
+     * Find the set of states in which the formula holds.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @return The set of states S in which the formula holds.
+     */
+    public StateSet solve(AbstractComponent formula) {
+        Node root = FormulaNode.flatten(formula, graph, Node::new);
+        findDependents(root, null, new HashSet<>());
+        initialize(root, null, null);
+        return root.value;
+    }
+
+    /**
+     * Find the block and the binders of the free variables of each sub-formula, and register each binder that starts a
+     * new block as a dependent of the binders in the enclosing block that it refers to.
+     *
+     * @param node The node to start the search in.
+     * @param enclosing The closest binder that encloses the node, null if there is none.
+     * @param free The set to which the binders of the free variables of the node are added.
+     */
+    private void findDependents(Node node, Node enclosing, Set<Node> free) {
+        if(node.isBinder()) {
+            // Binders of the same sign are solved simultaneously with the enclosing binder.
+            node.block = enclosing != null && enclosing.type == node.type ? enclosing.block : node;
+        } else {
+            node.block = enclosing == null ? null : enclosing.block;
+        }
+
+        if(node.type == VARIABLE) {
+            free.add(node.binder);
+            node.binder.occurrences.add(node);
+        } else if(node.isBinder()) {
+            Set<Node> inner = new HashSet<>();
+            findDependents(node.lhs, node, inner);
+            inner.remove(node);
+
+            // A binder of the opposite sign has to be re-evaluated when a variable of the enclosing block changes.
+            if(node.block == node && node.parent != null && node.parent.block != null) {
+                for(Node binder : inner) {
+                    if(binder.block == node.parent.block) {
+                        binder.dependents.add(node);
+                    }
+                }
+            }
+            free.addAll(inner);
+        } else {
+            if(node.lhs != null) {
+                findDependents(node.lhs, enclosing, free);
+            }
+            if(node.rhs != null) {
+                findDependents(node.rhs, enclosing, free);
+            }
+        }
+    }
+
+    /**
+     * Solve the block of fixpoints that has the given binder as its root, using the worklist algorithm.
+     *
+     * @param root The outermost binder of the block.
+     * @return The set of states in which the fixpoint formula holds.
+     */
+    private StateSet solveBlock(Node root) {
+        boolean mu = root.type == MU;
+        Worklist worklist = new Worklist();
+        Set<Node> dirty = new LinkedHashSet<>();
+
+        // Evaluate the block once, with all the variables of the block at their initial approximation.
+        List<Node> binders = new ArrayList<>();
+        initialize(root, root, binders);
+
+        // Only start updating the binders once all nodes are evaluated, such that every change is seen exactly once.
+        for(Node binder : binders) {
+            update(binder, binder.lhs.value, mu, worklist);
+        }
+
+        // Propagate the changes until the worklist is empty and no dependent fixpoint needs to be re-evaluated.
+        do {
+            while(!worklist.isEmpty()) {
+                int state = worklist.peekState();
+                propagate(worklist.pop(), state, root, mu, worklist, dirty);
+            }
+            counter.iterations++;
+
+            // Re-evaluate the fixpoints of the opposite sign whose free variables have changed.
+            List<Node> changed = new ArrayList<>(dirty);
+            dirty.clear();
+            for(Node binder : changed) {
+                StateSet previous = binder.value;
+                StateSet result = solveBlock(binder);
+                binder.value = previous;
+                counter.resets++;
+
+                // The fixpoint is monotonic in its free variables, so it can only change in the direction of the block.
+                update(binder, result, mu, worklist);
+            }
+        } while(!worklist.isEmpty());
+
+        return root.value;
+    }
+
+    /**
+     * Evaluate the given node from scratch, given the current approximations of the recursion variables.
+     *
+     * @param node The node to evaluate.
+     * @param root The root of the block that is currently being solved, null if there is none.
+     * @param binders The list to which the binders of the block that is currently being solved are added.
+     */
+    private void initialize(Node node, Node root, List<Node> binders) {
+        switch(node.type) {
+            case TRUE:
+                node.value = graph.S();
+                break;
+            case FALSE:
+                node.value = graph.emptySet();
+                break;
+            case VARIABLE:
+                // Share the approximation of the binder, such that the variable observes all changes.
+                node.value = node.binder.value;
+                break;
+            case AND:
+            case OR:
+                initialize(node.lhs, root, binders);
+                initialize(node.rhs, root, binders);
+                node.value = node.lhs.value.copy();
+                if(node.type == AND) {
+                    node.value.retainAll(node.rhs.value);
+                } else {
+                    node.value.addAll(node.rhs.value);
+                }
+                break;
+            case DIAMOND:
+            case BOX:
+                initialize(node.lhs, root, binders);
+                initializeModality(node, root != null && root.type == MU);
+                break;
+            default:
+                if(root == null || node.block != root.block) {
+                    // Binders that are not part of the current block are solved on their own.
+                    node.value = solveBlock(node);
+                } else {
+                    // Start at the initial approximation, the body is taken into account when solving the block.
+                    node.value = node.type == MU ? graph.emptySet() : graph.S();
+                    initialize(node.lhs, root, binders);
+                    binders.add(node);
+                }
+        }
+    }
+
+    /**
+     * Evaluate the given modality from scratch and initialize its successor counters. In a mu block, a box modality
+     * counts the unsatisfied successors of each state, as states can only be added. In a nu block, a diamond modality
+     * counts the satisfied successors of each state, as states can only be removed.
+     *
+     * @param node The modality to evaluate.
+     * @param mu Whether the modality is part of a mu block.
+     */
+    private void initializeModality(Node node, boolean mu) {
+        boolean box = node.type == BOX;
+
+        // Count the successors that are unsatisfied (box) or satisfied (diamond).
+        StateSet counted = node.lhs.value.copy();
+        if(box) {
+            counted.complement();
+        }
+
+        // Without transitions with the label, the counters remain zero.
+        int[] count = new int[graph.numberOfStates];
+        if(node.label != -1) {
+            for(int state = counted.nextState(0); state != -1; state = counted.nextState(state + 1)) {
+                for(int i = 0, n = graph.getInDegree(state, node.label); i < n; i++) {
+                    count[graph.getStartpoint(state, node.label, i)]++;
+                }
+            }
+        }
+
+        // A box holds without unsatisfied successors, a diamond holds with at least one satisfied successor.
+        node.value = graph.emptySet();
+        for(int state = 0; state < graph.numberOfStates; state++) {
+            if((count[state] == 0) == box) {
+                node.value.add(state);
+            }
+        }
+
+        // Only keep the counters that can change in the direction of the block.
+        node.count = box == mu ? count : null;
+    }
+
+    /**
+     * Add (mu) or remove (nu) the states in which the evaluation of the node differs from the given set.
+     *
+     * @param node The node that changes.
+     * @param result The new evaluation of the node.
+     * @param mu Whether states are added (mu) or removed (nu).
+     * @param worklist The worklist to which the changes are added.
+     */
+    private void update(Node node, StateSet result, boolean mu, Worklist worklist) {
+        StateSet delta = mu ? result.copy() : node.value.copy();
+        delta.removeAll(mu ? node.value : result);
+        for(int state = delta.nextState(0); state != -1; state = delta.nextState(state + 1)) {
+            apply(node, state, mu, worklist);
+        }
+    }
+
+    /**
+     * Add (mu) or remove (nu) the given state to the evaluation of the node, and schedule the change if it is new.
+     *
+     * @param node The node that changes.
+     * @param state The state that is added or removed.
+     * @param mu Whether states are added (mu) or removed (nu).
+     * @param worklist The worklist to which the change is added.
+     */
+    private void apply(Node node, int state, boolean mu, Worklist worklist) {
+        if(node.value.contains(state) != mu) {
+            if(mu) {
+                node.value.add(state);
+            } else {
+                node.value.remove(state);
+            }
+            worklist.push(node, state);
+        }
+    }
+
+    /**
+     * Propagate a change of the evaluation of the given node to the nodes that depend on it.
+     *
+     * @param node The node that changed.
+     * @param state The state that was added or removed.
+     * @param root The root of the block that is currently being solved.
+     * @param mu Whether states are added (mu) or removed (nu).
+     * @param worklist The worklist to which the resulting changes are added.
+     * @param dirty The set of binders that have to be re-evaluated.
+     */
+    private void propagate(Node node, int state, Node root, boolean mu, Worklist worklist, Set<Node> dirty) {
+        // The approximation of a binder in the block changed, which affects its recursion variables. Occurrences
+        // within fixpoints of the opposite sign are taken into account when re-evaluating those fixpoints instead.
+        if(node.isBinder() && node.block == root) {
+            for(Node variable : node.occurrences) {
+                if(variable.block == root) {
+                    worklist.push(variable, state);
+                }
+            }
+            dirty.addAll(node.dependents);
+        }
+
+        if(node == root) {
+            return;
+        }
+
+        Node parent = node.parent;
+        switch(parent.type) {
+            case AND:
+            case OR:
+                // Adding to an and, or removing from an or, requires the other side to agree.
+                Node sibling = parent.lhs == node ? parent.rhs : parent.lhs;
+                if(mu != (parent.type == AND) || sibling.value.contains(state) == mu) {
+                    apply(parent, state, mu, worklist);
+                }
+                break;
+            case DIAMOND:
+            case BOX:
+                // Without transitions with the label, the modality does not depend on its sub-formula.
+                if(parent.label == -1) {
+                    break;
+                }
+                for(int i = 0, n = graph.getInDegree(state, parent.label); i < n; i++) {
+                    int start = graph.getStartpoint(state, parent.label, i);
+                    if(parent.count == null || --parent.count[start] == 0) {
+                        apply(parent, start, mu, worklist);
+                    }
+                }
+                break;
+            default:
+                apply(parent, state, mu, worklist);
+        }
+    }
+
+    /**
+     * A stack of (node, state) pairs that still have to be propagated.
+     */
+    private static class Worklist {
+        private Node[] nodes = new Node[16];
+        private int[] states = new int[16];
+        private int size = 0;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(Node node, int state) {
+            if(size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * size);
+                states = Arrays.copyOf(states, 2 * size);
+            }
+            nodes[size] = node;
+            states[size++] = state;
+        }
+
+        int peekState() {
+            return states[size - 1];
+        }
+
+        Node pop() {
+            Node node = nodes[--size];
+            nodes[size] = null;
+            return node;
+        }
+    }
+}
@@ -2,7 +2,9 @@ package s2imf35.operator;
 
 import s2imf35.PerformanceCounter;
 import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -11,6 +13,16 @@ import java.util.Set;
  * An abstract class which is the basis of all other component types.
  */
 public abstract class AbstractComponent {
+    // The number of operators in the formula that have the sub-formula as operand. The parser shares structurally
+    // identical sub-formulae, such that the parse tree is a directed acyclic graph in which this can exceed one.
+    int references = 0;
+
+    // The result of the last evaluation, if the sub-formula is shared or does not depend on the variable of the binder
+    // that encloses it.
+    ResultCache cache;
+
+    // The caches of all sub-formulae, if the component is the root of a parsed formula.
+    List<ResultCache> caches = Collections.emptyList();
 
     /**
      * Get a string representation of the formula in latex markup.
@@ -20,23 +32,39 @@ public abstract class AbstractComponent {
     public abstract String toLatex();
 
     /**
-     * Check whether the given input formula matches the structure of the operator type.
-     *
-     * @param input The (sub)formula string.
-     * @return Whether the formula can be converted into a node of the desired operator type.
+     * Clear the caches of the sub-formulae of a parsed formula, which hold the graph and the approximations of the last
+     * solve. A formula that is reused for another graph would otherwise keep the previous graph reachable.
      */
-    public abstract boolean isMatch(String input);
+    public void releaseCaches() {
+        for(ResultCache c : caches) {
+            c.clear();
+        }
+    }
 
     /**
-     * Convert the given input formula to a node of the desired operator type and resolve the sub-formulas recursively.
+     * Find the set of states S in which the formula holds, using the Emerson-Lei Algorithm. Sub-formulae with a cache
+     * are only evaluated again if the approximation of one of their free recursion variables has changed since the last
+     * evaluation. The evaluation is recorded in the profile of the counter, if it has one.
      *
-     * @param input The (sub)formula string.
-     * @return The formula represented by a parse tree, with as root node the desired operator type.
+     * @param graph The graph the formula should be applied to.
+     * @param A The current approximations of the recursion variables, represented by a mapping.
+     * @param lastBinder The recursion variables that are bounded by the parent nodes.
+     * @param counter A performance counter that measures the performance of the algorithm.
+     * @return The set of states S in which the formula holds.
      */
-    public abstract AbstractComponent extract(String input);
+    public StateSet emersonLei(LTS graph, Map<String, StateSet> A, AbstractComponent lastBinder, PerformanceCounter counter) {
+        if(counter.profile != null) {
+            long start = System.nanoTime();
+            StateSet result = lookupEmersonLei(graph, A, lastBinder, counter);
+            counter.profile.record(this, start, result);
+            return result;
+        }
+        return lookupEmersonLei(graph, A, lastBinder, counter);
+    }
 
     /**
-     * Find the set of states S in which the formula holds, using the Emerson-Lei Algorithm.
+     * Find the set of states S in which the formula holds, using the Emerson-Lei Algorithm, in the cache of the
+     * sub-formula if it has one.
      *
      * @param graph The graph the formula should be applied to.
      * @param A The current approximations of the recursion variables, represented by a mapping.
@@ -44,59 +72,95 @@ public abstract class AbstractComponent {
      * @param counter A performance counter that measures the performance of the algorithm.
      * @return The set of states S in which the formula holds.
      */
-    public abstract Set<Integer> emersonLei(LTS graph, Map<String, Set<Integer>> A, AbstractComponent lastBinder, PerformanceCounter counter);
+    private StateSet lookupEmersonLei(LTS graph, Map<String, StateSet> A, AbstractComponent lastBinder,
+                                      PerformanceCounter counter) {
+        if(cache == null) {
+            return evaluateEmersonLei(graph, A, lastBinder, counter);
+        }
+
+        StateSet result = cache.get(graph, A);
+        if(result == null) {
+            StateSet[] inputs = cache.inputs(A);
+            result = evaluateEmersonLei(graph, A, lastBinder, counter);
+            cache.put(graph, A, inputs, result);
+        }
+        return result;
+    }
 
     /**
-     * Find the set of states S in which the formula holds, using the naive algorithm.
+     * Find the set of states S in which the formula holds, using the Emerson-Lei Algorithm, without consulting the
+     * cache of the sub-formula.
      *
      * @param graph The graph the formula should be applied to.
      * @param A The current approximations of the recursion variables, represented by a mapping.
+     * @param lastBinder The recursion variables that are bounded by the parent nodes.
      * @param counter A performance counter that measures the performance of the algorithm.
      * @return The set of states S in which the formula holds.
      */
-    public abstract Set<Integer> naive(LTS graph, Map<String, Set<Integer>> A, PerformanceCounter counter);
+    protected abstract StateSet evaluateEmersonLei(LTS graph, Map<String, StateSet> A, AbstractComponent lastBinder, PerformanceCounter counter);
 
     /**
-     * A list of all component types ordered by parsing priority.
+     * Find the set of states S in which the formula holds, using the naive algorithm. Sub-formulae with a cache are
+     * only evaluated again if the approximation of one of their free recursion variables has changed since the last
+     * evaluation. The evaluation is recorded in the profile of the counter, if it has one.
+     *
+     * @param graph The graph the formula should be applied to.
+     * @param A The current approximations of the recursion variables, represented by a mapping.
+     * @param counter A performance counter that measures the performance of the algorithm.
+     * @return The set of states S in which the formula holds.
      */
-    @SuppressWarnings("StaticInitializerReferencesSubClass")
-    private static final AbstractComponent[] componentTypes = {
-            new AndComponent(),
-            new OrComponent(),
-            new RecursionVariableComponent(),
-            new TrueComponent(),
-            new FalseComponent(),
-            new DiamondModalityComponent(),
-            new BoxModalityComponent(),
-            new NuComponent(),
-            new MuComponent()
-    };
+    public StateSet naive(LTS graph, Map<String, StateSet> A, PerformanceCounter counter) {
+        if(counter.profile != null) {
+            long start = System.nanoTime();
+            StateSet result = lookupNaive(graph, A, counter);
+            counter.profile.record(this, start, result);
+            return result;
+        }
+        return lookupNaive(graph, A, counter);
+    }
 
     /**
-     * Find the root operator/symbol and parse the given input formula recursively.
+     * Find the set of states S in which the formula holds, using the naive algorithm, in the cache of the sub-formula
+     * if it has one.
      *
-     * @param input The (sub)formula string.
-     * @return The formula represented by a parse tree.
+     * @param graph The graph the formula should be applied to.
+     * @param A The current approximations of the recursion variables, represented by a mapping.
+     * @param counter A performance counter that measures the performance of the algorithm.
+     * @return The set of states S in which the formula holds.
      */
-    public static AbstractComponent parse(String input) {
-        // Remove padding spaces.
-        input = input.trim();
-
-        // Find the pattern that matches.
-        for(AbstractComponent component : componentTypes) {
-            if(component.isMatch(input)) {
-                return component.extract(input);
-            }
+    private StateSet lookupNaive(LTS graph, Map<String, StateSet> A, PerformanceCounter counter) {
+        if(cache == null) {
+            return evaluateNaive(graph, A, counter);
         }
 
-        // We might have brackets to worry about. Remove the outer brackets and call parse again.
-        if(input.startsWith("(") && input.endsWith(")")) {
-            input = input.substring(1, input.length() - 1);
-            return parse(input);
+        StateSet result = cache.get(graph, A);
+        if(result == null) {
+            StateSet[] inputs = cache.inputs(A);
+            result = evaluateNaive(graph, A, counter);
+            cache.put(graph, A, inputs, result);
         }
+        return result;
+    }
+
+    /**
+     * Find the set of states S in which the formula holds, using the naive algorithm, without consulting the cache of
+     * the sub-formula.
+     *
+     * @param graph The graph the formula should be applied to.
+     * @param A The current approximations of the recursion variables, represented by a mapping.
+     * @param counter A performance counter that measures the performance of the algorithm.
+     * @return The set of states S in which the formula holds.
+     */
+    protected abstract StateSet evaluateNaive(LTS graph, Map<String, StateSet> A, PerformanceCounter counter);
 
-        // We failed to parse the input, throw an exception.
-        throw new RuntimeException("Failed to parse input \"" + input + "\"");
+    /**
+     * Parse the given input formula.
+     *
+     * @param input The formula string.
+     * @return The formula represented by a parse tree.
+     */
+    public static AbstractComponent parse(String input) {
+        return FormulaParser.parse(input);
     }
 
     /**
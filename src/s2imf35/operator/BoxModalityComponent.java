@@ -2,28 +2,20 @@ package s2imf35.operator;
 
 import s2imf35.PerformanceCounter;
 import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
 
 import java.util.*;
-import java.util.regex.Pattern;
 
 /**
  * A class that represents the box modality operator node type.
  */
 public class BoxModalityComponent extends AbstractComponent {
     // The components of the and operator.
-    private final String label;
-    private final AbstractComponent rhs;
+    public final String label;
+    public final AbstractComponent rhs;
 
-    // Regex for labels.
-    private static final Pattern p = Pattern.compile("[a-z][a-z0-9_]*");
-
-    /**
-     * Constructor for the default box modality component, used as a type detector.
-     */
-    BoxModalityComponent() {
-        this.label = null;
-        this.rhs = new TrueComponent();
-    }
+    // The id of the label in the graph the modality was last evaluated on.
+    private LabelBinding binding;
 
     /**
      * Create a box modality component with the given label and subtree.
@@ -31,39 +23,11 @@ public class BoxModalityComponent extends AbstractComponent {
      * @param label The text between the [] symbols.
      * @param rhs The subtree over which the modality is defined.
      */
-    private BoxModalityComponent(String label, AbstractComponent rhs) {
+    BoxModalityComponent(String label, AbstractComponent rhs) {
         this.label = label;
         this.rhs = rhs;
     }
 
-    /**
-     * {@inheritDoc}
-     * The input formula is only matches iff the formula starts with a string of the form '[[a-z][a-z0-9_]*]'.
-     */
-    public boolean isMatch(String input) {
-        if(input.startsWith("[")) {
-            // Find the label.
-            int start = input.indexOf("[");
-            int end = input.indexOf("]");
-            String label = input.substring(start + 1, end);
-
-            // Is the label valid?
-            return p.matcher(label).find();
-        }
-        return false;
-    }
-
-    public AbstractComponent extract(String input) {
-        // Find the label and formula.
-        int start = input.indexOf("[");
-        int end = input.indexOf("]");
-        String label = input.substring(start + 1, end);
-        String formula = input.substring(end + 1, input.length());
-
-        // Resolve the sub-components and make a new node.
-        return new BoxModalityComponent(label, parse(formula));
-    }
-
     @Override
     public String toLatex() {
         return "[" + label + "]" + rhs.toLatex();
@@ -71,22 +35,25 @@ public class BoxModalityComponent extends AbstractComponent {
 
     @SuppressWarnings("Duplicates")
     @Override
-    public Set<Integer> emersonLei(LTS graph, Map<String, Set<Integer>> A, AbstractComponent lastBinder, PerformanceCounter counter) {
+    protected StateSet evaluateEmersonLei(LTS graph, Map<String, StateSet> A, AbstractComponent lastBinder, PerformanceCounter counter) {
         // Evaluate the sub-formula.
-        Set<Integer> eval = rhs.emersonLei(graph, A, lastBinder, counter);
+        StateSet eval = rhs.emersonLei(graph, A, lastBinder, counter);
 
-        // For each state, check whether all transitions with the label satisfy the sub-formula.
-        return findValidStates(graph, eval);
+        // Test ranges of states in parallel if enabled, and otherwise walk backwards over the transitions with the
+        // label that end in a state violating the sub-formula.
+        return ParallelEvaluation.isEnabled(counter) ? findValidStatesInParallel(graph, eval) :
+                findValidStatesByPredecessors(graph, eval);
     }
 
     @SuppressWarnings("Duplicates")
     @Override
-    public Set<Integer> naive(LTS graph, Map<String, Set<Integer>> A, PerformanceCounter counter) {
+    protected StateSet evaluateNaive(LTS graph, Map<String, StateSet> A, PerformanceCounter counter) {
         // Evaluate the sub-formula.
-        Set<Integer> eval = rhs.naive(graph, A, counter);
+        StateSet eval = rhs.naive(graph, A, counter);
 
-        // For each state, check whether all transitions with the label satisfy the sub-formula.
-        return findValidStates(graph, eval);
+        // For each state, possibly in parallel, check the transitions with the label against the sub-formula.
+        return ParallelEvaluation.isEnabled(counter) ? findValidStatesInParallel(graph, eval) :
+                findValidStates(graph, eval);
     }
 
     @Override
@@ -134,27 +101,110 @@ public class BoxModalityComponent extends AbstractComponent {
         rhs.getNuFormulae(components);
     }
 
+    /**
+     * Find the id of the label of the modality in the given graph, which is only looked up once per graph.
+     *
+     * @param graph The graph the modality is evaluated on.
+     * @return The id of the label, or -1 if no transition in the graph has the label.
+     */
+    private int bind(LTS graph) {
+        LabelBinding binding = this.binding;
+        if(binding == null || !binding.isBoundTo(graph)) {
+            binding = new LabelBinding(graph, label);
+            this.binding = binding;
+        }
+        return binding.id;
+    }
+
     /**
      * Find all the states that can reach all of the states that are valid under the sub-formula.
      *
      * @param graph The graph which we check the formula against against.
-     * @param eval The evaluation of the sub-formula, given as a set of integers.
+     * @param eval The evaluation of the sub-formula, given as a set of states.
      * @return The set of states that can reach all of the states valid under the sub-formula.
      */
-    private Set<Integer> findValidStates(LTS graph, Set<Integer> eval) {
+    private StateSet findValidStates(LTS graph, StateSet eval) {
+        // Without transitions with the label, all states trivially satisfy the modality.
+        int id = bind(graph);
+        if(id == -1) {
+            return graph.S();
+        }
+
         // The states in the result.
-        Set<Integer> result = new HashSet<>();
+        StateSet result = graph.emptySet();
 
-        for(int state : graph.S()) {
-            // Find all transitions/endpoints starting at the state, with the given label.
-            Set<Integer> endPoints = graph.getEndpoints(state, label);
+        for(int state = 0; state < graph.numberOfStates; state++) {
+            // Check whether all endpoints of the transitions with the given label are in eval.
+            boolean valid = true;
+            for(int i = 0, n = graph.getDegree(state, id); i < n && valid; i++) {
+                valid = eval.contains(graph.getEndpoint(state, id, i));
+            }
 
-            // Check whether all endpoints are in eval. If it does, add the state to the result.
-            if(eval.containsAll(endPoints)) {
+            // If they are, add the state to the result.
+            if(valid) {
                 result.add(state);
             }
         }
 
         return result;
     }
+
+    /**
+     * Find all the states that can reach all of the states that are valid under the sub-formula, by visiting the
+     * predecessors of the invalid states. A state is valid iff it has no unsatisfied successors, hence only the
+     * transitions that end in an invalid state are touched.
+     *
+     * @param graph The graph which we check the formula against against.
+     * @param eval The evaluation of the sub-formula, given as a set of states.
+     * @return The set of states that can reach all of the states valid under the sub-formula.
+     */
+    private StateSet findValidStatesByPredecessors(LTS graph, StateSet eval) {
+        // Without transitions with the label, all states trivially satisfy the modality.
+        int id = bind(graph);
+        if(id == -1) {
+            return graph.S();
+        }
+
+        // The states in the result.
+        StateSet result = graph.S();
+
+        // The states in which the sub-formula does not hold.
+        StateSet invalid = eval.copy();
+        invalid.complement();
+
+        for(int state = invalid.nextState(0); state != -1; state = invalid.nextState(state + 1)) {
+            // All start points of transitions with the given label ending in the state have an unsatisfied successor.
+            for(int i = 0, n = graph.getInDegree(state, id); i < n; i++) {
+                result.remove(graph.getStartpoint(state, id, i));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Find all the states that can reach all of the states that are valid under the sub-formula, by testing ranges of
+     * states in parallel.
+     *
+     * @param graph The graph which we check the formula against against.
+     * @param eval The evaluation of the sub-formula, given as a set of states.
+     * @return The set of states that can reach all of the states that are valid under the sub-formula.
+     */
+    private StateSet findValidStatesInParallel(LTS graph, StateSet eval) {
+        // Without transitions with the label, all states trivially satisfy the modality.
+        int id = bind(graph);
+        if(id == -1) {
+            return graph.S();
+        }
+
+        return ParallelEvaluation.sweep(graph, state -> {
+            // Check whether all endpoints of the transitions with the given label are in eval.
+            for(int i = 0, n = graph.getDegree(state, id); i < n; i++) {
+                if(!eval.contains(graph.getEndpoint(state, id, i))) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
 }
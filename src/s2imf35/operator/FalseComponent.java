@@ -2,6 +2,7 @@ package s2imf35.operator;
 
 import s2imf35.PerformanceCounter;
 import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
 
 import java.util.*;
 
@@ -10,32 +11,19 @@ import java.util.*;
  */
 public class FalseComponent extends AbstractComponent {
 
-    /**
-     * {@inheritDoc}
-     * The input formula is only matches iff the formula equals 'false'.
-     */
-    public boolean isMatch(String input) {
-        // Is the input false?
-        return input.equals("false");
-    }
-
-    public AbstractComponent extract(String input) {
-        return new FalseComponent();
-    }
-
     @Override
     public String toLatex() {
         return "false";
     }
 
     @Override
-    public Set<Integer> emersonLei(LTS graph, Map<String, Set<Integer>> A, AbstractComponent lastBinder, PerformanceCounter counter) {
-        return new HashSet<>();
+    protected StateSet evaluateEmersonLei(LTS graph, Map<String, StateSet> A, AbstractComponent lastBinder, PerformanceCounter counter) {
+        return graph.emptySet();
     }
 
     @Override
-    public Set<Integer> naive(LTS graph, Map<String, Set<Integer>> A, PerformanceCounter counter) {
-        return new HashSet<>();
+    protected StateSet evaluateNaive(LTS graph, Map<String, StateSet> A, PerformanceCounter counter) {
+        return graph.emptySet();
     }
 
     @Override
@@ -0,0 +1,162 @@
+package s2imf35.operator;
+
+import s2imf35.graph.LTS;
+
+import java.util.*;
+
+/**
+ * A node of a parse tree in which every occurrence of a sub-formula is a node of its own, recursion variables refer to
+ * the node of their binder and labels are resolved to the label ids of a graph. The parse tree produced by the parser
+ * shares identical sub-formulae, which suits the evaluations that only depend on the sub-formula, but not the solvers
+ * that keep state per occurrence. Such solvers extend this class with the fields they need, and create their tree with
+ * {@link #flatten(AbstractComponent, LTS, Factory)}.
+ *
+ * @param <N> The type of the nodes of the tree.
+ */
+public abstract class FormulaNode<N extends FormulaNode<N>> {
+    // The node types of the flattened parse tree.
+    public static final int TRUE = 0, FALSE = 1, VARIABLE = 2, AND = 3, OR = 4, DIAMOND = 5, BOX = 6, MU = 7, NU = 8;
+
+    // The type of the node.
+    public final int type;
+
+    // The sub-formula of which the node is an occurrence.
+    public final AbstractComponent component;
+
+    // The children and parent of the node, null if not applicable. The operand of a modality or binder is lhs.
+    public N lhs, rhs, parent;
+
+    // The id of the label of a modality, -1 if no transition in the graph has the label.
+    public int label = -1;
+
+    // The binder of a recursion variable.
+    public N binder;
+
+    // The occurrences of the open binders with the same sign within a binder, including the binder itself if it is
+    // open, which are reset when the binder is entered from a binder of the opposite sign.
+    public final List<N> resets = new ArrayList<>();
+
+    /**
+     * A constructor of the nodes of a tree.
+     *
+     * @param <N> The type of the nodes.
+     */
+    public interface Factory<N> {
+        /**
+         * Create a node without children.
+         *
+         * @param type The type of the node.
+         * @param component The sub-formula of which the node is an occurrence.
+         * @return The node.
+         */
+        N create(int type, AbstractComponent component);
+    }
+
+    /**
+     * Create a node without children.
+     *
+     * @param type The type of the node.
+     * @param component The sub-formula of which the node is an occurrence.
+     */
+    protected FormulaNode(int type, AbstractComponent component) {
+        this.type = type;
+        this.component = component;
+    }
+
+    /**
+     * Check whether the node binds a recursion variable.
+     *
+     * @return True if the node is a mu or nu node, false otherwise.
+     */
+    public boolean isBinder() {
+        return type == MU || type == NU;
+    }
+
+    /**
+     * Convert the given parse tree to a tree of nodes, in which recursion variables refer to their binders. The open
+     * sub-formulae found by the parser are resolved to the occurrences of the binders within each binder.
+     *
+     * @param formula The formula to convert.
+     * @param graph The graph whose label ids are used.
+     * @param factory The constructor of the nodes.
+     * @param <N> The type of the nodes.
+     * @return The root of the tree.
+     */
+    public static <N extends FormulaNode<N>> N flatten(AbstractComponent formula, LTS graph, Factory<N> factory) {
+        return flatten(formula, null, graph, factory, new HashMap<>(), new ArrayList<>());
+    }
+
+    /**
+     * Convert the given sub-formula to a tree of nodes.
+     *
+     * @param component The sub-formula to convert.
+     * @param parent The parent of the sub-formula, null for the root.
+     * @param graph The graph whose label ids are used.
+     * @param factory The constructor of the nodes.
+     * @param scope The binders of the variables that are bound at the location of the sub-formula.
+     * @param binders The list to which the binders are added in pre-order.
+     * @param <N> The type of the nodes.
+     * @return The node representing the sub-formula.
+     */
+    private static <N extends FormulaNode<N>> N flatten(AbstractComponent component, N parent, LTS graph,
+                                                        Factory<N> factory, Map<String, N> scope, List<N> binders) {
+        N node;
+        if(component instanceof TrueComponent) {
+            node = factory.create(TRUE, component);
+        } else if(component instanceof FalseComponent) {
+            node = factory.create(FALSE, component);
+        } else if(component instanceof RecursionVariableComponent) {
+            node = factory.create(VARIABLE, component);
+            node.binder = scope.get(((RecursionVariableComponent) component).name);
+            if(node.binder == null) {
+                throw new RuntimeException("The recursion variable \"" + component.toLatex() + "\" is not bound.");
+            }
+        } else if(component instanceof AndComponent || component instanceof OrComponent) {
+            boolean and = component instanceof AndComponent;
+            node = factory.create(and ? AND : OR, component);
+            node.lhs = flatten(and ? ((AndComponent) component).lhs : ((OrComponent) component).lhs,
+                    node, graph, factory, scope, binders);
+            node.rhs = flatten(and ? ((AndComponent) component).rhs : ((OrComponent) component).rhs,
+                    node, graph, factory, scope, binders);
+        } else if(component instanceof DiamondModalityComponent) {
+            DiamondModalityComponent diamond = (DiamondModalityComponent) component;
+            node = factory.create(DIAMOND, component);
+            node.label = graph.getLabelId(diamond.label);
+            node.lhs = flatten(diamond.rhs, node, graph, factory, scope, binders);
+        } else if(component instanceof BoxModalityComponent) {
+            BoxModalityComponent box = (BoxModalityComponent) component;
+            node = factory.create(BOX, component);
+            node.label = graph.getLabelId(box.label);
+            node.lhs = flatten(box.rhs, node, graph, factory, scope, binders);
+        } else {
+            boolean mu = component instanceof MuComponent;
+            String variable = mu ? ((MuComponent) component).variable : ((NuComponent) component).variable;
+            AbstractComponent body = mu ? ((MuComponent) component).rhs : ((NuComponent) component).rhs;
+            node = factory.create(mu ? MU : NU, component);
+            int first = binders.size();
+            binders.add(node);
+
+            // Bind the variable while converting the body, and restore the shadowed binder afterwards.
+            N shadowed = scope.put(variable, node);
+            node.lhs = flatten(body, node, graph, factory, scope, binders);
+            if(shadowed == null) {
+                scope.remove(variable);
+            } else {
+                scope.put(variable, shadowed);
+            }
+
+            // The binders within the binder directly follow it in pre-order.
+            Set<AbstractComponent> open = Collections.newSetFromMap(new IdentityHashMap<>());
+            open.addAll(mu ? ((MuComponent) component).getOpenSubFormulae() :
+                    ((NuComponent) component).getOpenSubFormulae());
+            for(N binder : binders.subList(first, binders.size())) {
+                if(open.contains(binder.component)) {
+                    node.resets.add(binder);
+                }
+            }
+        }
+
+        node.parent = parent;
+        return node;
+    }
+}
@@ -0,0 +1,467 @@
+package s2imf35.operator;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * A parser that converts a formula to a parse tree in a single pass. The input is first split into tokens, after which
+ * the tree is built by recursive descent over the following grammar:
+ *
+ *   f ::= true | false | X | &lt;a&gt;f | [a]f | mu X. f | nu X. f | (f) | (f &amp;&amp; ... &amp;&amp; f) | (f || ... || f)
+ *
+ * Recursion variables are single capital letters, and labels match [a-z][a-z0-9_]*. Chains of the same binary operator
+ * are nested to the left, and different binary operators have to be separated by brackets. Lines that start with a %
+ * are comments. Errors are reported with the line and column at which they occur.
+ *
+ * Structurally identical sub-formulae are represented by the same component, which turns the parse tree into a
+ * directed acyclic graph. The operators that occur more than once get a cache for their evaluation, as well as those
+ * that do not depend on the variable of an enclosing binder.
+ */
+class FormulaParser {
+    // The token types.
+    private static final int IDENTIFIER = 0, AND = 1, OR = 2, DOT = 3, OPEN = 4, CLOSE = 5, OPEN_DIAMOND = 6,
+            CLOSE_DIAMOND = 7, OPEN_BOX = 8, CLOSE_BOX = 9, END = 10;
+
+    // The tokens that consist of a single character, and their types.
+    private static final String SYMBOLS = "().<>[]";
+    private static final int[] SYMBOL_TYPES = {OPEN, CLOSE, DOT, OPEN_DIAMOND, CLOSE_DIAMOND, OPEN_BOX, CLOSE_BOX};
+
+    // The pattern of valid labels.
+    private static final Pattern LABEL = Pattern.compile("[a-z][a-z0-9_]*");
+
+    // The descriptions of the token types, as used in error messages.
+    private static final String[] DESCRIPTIONS = {
+            "an identifier", "'&&'", "'||'", "'.'", "'('", "')'", "'<'", "'>'", "'['", "']'", "the end of the formula"
+    };
+
+    // The formula that is parsed.
+    private final String input;
+
+    // The type, start and end of each token in the input.
+    private final List<int[]> tokens = new ArrayList<>();
+
+    // The index of the token that is parsed next.
+    private int position = 0;
+
+    // The components of the sub-formulae parsed so far, by type, label or variable and operands.
+    private final Map<List<Object>, AbstractComponent> components = new HashMap<>();
+
+    /**
+     * Create a parser for the given formula.
+     *
+     * @param input The formula string.
+     */
+    private FormulaParser(String input) {
+        this.input = input;
+    }
+
+    /**
+     * Parse the given formula.
+     *
+     * @param input The formula string.
+     * @return The formula represented by a parse tree.
+     */
+    static AbstractComponent parse(String input) {
+        FormulaParser parser = new FormulaParser(input);
+        parser.tokenize();
+        AbstractComponent formula = parser.formula();
+        parser.expect(END);
+
+        // The free variables of every sub-formula, which are computed once for each shared component.
+        Map<AbstractComponent, Set<String>> free = new IdentityHashMap<>();
+        freeVariables(formula, free);
+
+        // Operands of conjunctions and disjunctions may be forked if they only read approximations the other operand
+        // does not write to.
+        Map<AbstractComponent, Set<String>> bound = new IdentityHashMap<>();
+        for(AbstractComponent component : parser.components.values()) {
+            if(component instanceof AndComponent) {
+                AndComponent and = (AndComponent) component;
+                and.lhsForkable = isForkable(and.lhs, and.rhs, free, bound);
+                and.rhsForkable = isForkable(and.rhs, and.lhs, free, bound);
+            } else if(component instanceof OrComponent) {
+                OrComponent or = (OrComponent) component;
+                or.lhsForkable = isForkable(or.lhs, or.rhs, free, bound);
+                or.rhsForkable = isForkable(or.rhs, or.lhs, free, bound);
+            }
+        }
+
+        // Shared operators cache their evaluation, since their operands would otherwise be evaluated repeatedly.
+        for(AbstractComponent component : parser.components.values()) {
+            if(component.references > 1 && !(component instanceof TrueComponent ||
+                    component instanceof FalseComponent || component instanceof RecursionVariableComponent)) {
+                component.cache = new ResultCache(free.get(component));
+            }
+        }
+
+        // Sub-formulae that do not depend on the variable of an enclosing binder are equal in each of its iterations.
+        cacheInvariants(formula, new HashSet<>(), free);
+
+        // The root keeps track of the caches, such that they can be cleared once a solve has finished.
+        formula.caches = new ArrayList<>();
+        for(AbstractComponent component : parser.components.values()) {
+            if(component.cache != null) {
+                formula.caches.add(component.cache);
+            }
+        }
+        return formula;
+    }
+
+    /**
+     * Give a cache to the sub-formulae that are evaluated again when a variable changes that they do not depend on.
+     * Closed sub-formulae within a fixpoint are thereby evaluated once, and other sub-formulae whenever one of their
+     * free variables has changed.
+     *
+     * @param component The sub-formula.
+     * @param variables The variables whose iterations evaluate the sub-formula again, since they are bound by binders
+     *                  that enclose it without a cached sub-formula in between.
+     * @param free The free variables of the sub-formulae computed so far, to which the results are added.
+     */
+    private static void cacheInvariants(AbstractComponent component, Set<String> variables,
+                                        Map<AbstractComponent, Set<String>> free) {
+        if(component instanceof TrueComponent || component instanceof FalseComponent ||
+                component instanceof RecursionVariableComponent) {
+            return;
+        }
+
+        Set<String> open = free.get(component);
+        if(!open.containsAll(variables) && component.cache == null) {
+            component.cache = new ResultCache(open);
+        }
+
+        // Once cached, the sub-formula is only evaluated again when one of its free variables changes.
+        variables = new HashSet<>(variables);
+        variables.retainAll(open);
+        if(component instanceof AndComponent) {
+            cacheInvariants(((AndComponent) component).lhs, variables, free);
+            cacheInvariants(((AndComponent) component).rhs, variables, free);
+        } else if(component instanceof OrComponent) {
+            cacheInvariants(((OrComponent) component).lhs, variables, free);
+            cacheInvariants(((OrComponent) component).rhs, variables, free);
+        } else if(component instanceof DiamondModalityComponent) {
+            cacheInvariants(((DiamondModalityComponent) component).rhs, variables, free);
+        } else if(component instanceof BoxModalityComponent) {
+            cacheInvariants(((BoxModalityComponent) component).rhs, variables, free);
+        } else if(component instanceof MuComponent) {
+            variables.add(((MuComponent) component).variable);
+            cacheInvariants(((MuComponent) component).rhs, variables, free);
+        } else if(component instanceof NuComponent) {
+            variables.add(((NuComponent) component).variable);
+            cacheInvariants(((NuComponent) component).rhs, variables, free);
+        }
+    }
+
+    /**
+     * Compute the free variables of the given sub-formula and all of its sub-formulae, bottom up. Every shared
+     * component is visited once, such that the computation takes linear time in the size of the parse tree.
+     *
+     * @param component The sub-formula.
+     * @param free The free variables of the sub-formulae computed so far, to which the results are added.
+     * @return The free variables of the sub-formula.
+     */
+    private static Set<String> freeVariables(AbstractComponent component, Map<AbstractComponent, Set<String>> free) {
+        Set<String> result = free.get(component);
+        if(result != null) {
+            return result;
+        }
+
+        result = new HashSet<>();
+        if(component instanceof RecursionVariableComponent) {
+            result.add(((RecursionVariableComponent) component).name);
+        } else if(component instanceof AndComponent) {
+            result.addAll(freeVariables(((AndComponent) component).lhs, free));
+            result.addAll(freeVariables(((AndComponent) component).rhs, free));
+        } else if(component instanceof OrComponent) {
+            result.addAll(freeVariables(((OrComponent) component).lhs, free));
+            result.addAll(freeVariables(((OrComponent) component).rhs, free));
+        } else if(component instanceof DiamondModalityComponent) {
+            result.addAll(freeVariables(((DiamondModalityComponent) component).rhs, free));
+        } else if(component instanceof BoxModalityComponent) {
+            result.addAll(freeVariables(((BoxModalityComponent) component).rhs, free));
+        } else if(component instanceof MuComponent) {
+            result.addAll(freeVariables(((MuComponent) component).rhs, free));
+            result.remove(((MuComponent) component).variable);
+        } else if(component instanceof NuComponent) {
+            result.addAll(freeVariables(((NuComponent) component).rhs, free));
+            result.remove(((NuComponent) component).variable);
+        }
+        free.put(component, result);
+        return result;
+    }
+
+    /**
+     * Check whether an operand can be evaluated in parallel with its sibling. The operand may not contain binders, such
+     * that it only reads approximations, and the sibling may not bind any of its free variables, such that the sibling
+     * does not write the approximations the operand reads.
+     *
+     * @param operand The operand that would be forked.
+     * @param sibling The other operand of the same operator.
+     * @param free The free variables of the sub-formulae computed so far, to which the results are added.
+     * @param bound The variables bound within the sub-formulae computed so far, to which the results are added.
+     * @return True if the operand can be forked, false otherwise.
+     */
+    private static boolean isForkable(AbstractComponent operand, AbstractComponent sibling,
+                                      Map<AbstractComponent, Set<String>> free,
+                                      Map<AbstractComponent, Set<String>> bound) {
+        return boundVariables(operand, bound).isEmpty() &&
+                Collections.disjoint(boundVariables(sibling, bound), freeVariables(operand, free));
+    }
+
+    /**
+     * Compute the variables that are bound within the given sub-formula and all of its sub-formulae, bottom up. Every
+     * shared component is visited once.
+     *
+     * @param component The sub-formula.
+     * @param bound The variables bound within the sub-formulae computed so far, to which the results are added.
+     * @return The variables of the binders within the sub-formula, including the sub-formula itself.
+     */
+    private static Set<String> boundVariables(AbstractComponent component, Map<AbstractComponent, Set<String>> bound) {
+        Set<String> result = bound.get(component);
+        if(result != null) {
+            return result;
+        }
+
+        result = new HashSet<>();
+        if(component instanceof AndComponent) {
+            result.addAll(boundVariables(((AndComponent) component).lhs, bound));
+            result.addAll(boundVariables(((AndComponent) component).rhs, bound));
+        } else if(component instanceof OrComponent) {
+            result.addAll(boundVariables(((OrComponent) component).lhs, bound));
+            result.addAll(boundVariables(((OrComponent) component).rhs, bound));
+        } else if(component instanceof DiamondModalityComponent) {
+            result.addAll(boundVariables(((DiamondModalityComponent) component).rhs, bound));
+        } else if(component instanceof BoxModalityComponent) {
+            result.addAll(boundVariables(((BoxModalityComponent) component).rhs, bound));
+        } else if(component instanceof MuComponent) {
+            result.addAll(boundVariables(((MuComponent) component).rhs, bound));
+            result.add(((MuComponent) component).variable);
+        } else if(component instanceof NuComponent) {
+            result.addAll(boundVariables(((NuComponent) component).rhs, bound));
+            result.add(((NuComponent) component).variable);
+        }
+        bound.put(component, result);
+        return result;
+    }
+
+    /**
+     * Find the sub-formula that is structurally identical to the given sub-formula, such that every sub-formula is
+     * represented by a single component. The operands have been shared already, so two sub-formulae are identical iff
+     * their types, labels or variables and operands are identical.
+     *
+     * @param component The sub-formula that has just been parsed.
+     * @param key The type of the sub-formula, followed by its label or variable and its operands.
+     * @return The component representing the sub-formula.
+     */
+    private AbstractComponent share(AbstractComponent component, Object... key) {
+        AbstractComponent shared = components.putIfAbsent(Arrays.asList(key), component);
+        if(shared != null) {
+            return shared;
+        }
+
+        // The operands gain a reference from the new component.
+        for(Object operand : key) {
+            if(operand instanceof AbstractComponent) {
+                ((AbstractComponent) operand).references++;
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Split the input into tokens, skipping whitespace and comments.
+     */
+    private void tokenize() {
+        int i = 0, n = input.length();
+        boolean lineStart = true;
+        while(i < n) {
+            char c = input.charAt(i);
+            if(c == '%' && lineStart) {
+                // Skip the comment up to the end of the line.
+                while(i < n && input.charAt(i) != '\n') {
+                    i++;
+                }
+                continue;
+            }
+            lineStart = c == '\n' || c == '\r';
+
+            if(Character.isWhitespace(c)) {
+                i++;
+            } else if(Character.isLetter(c) || c == '_') {
+                int start = i;
+                while(i < n && (Character.isLetterOrDigit(input.charAt(i)) || input.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(new int[] {IDENTIFIER, start, i});
+            } else if((c == '&' || c == '|') && i + 1 < n && input.charAt(i + 1) == c) {
+                tokens.add(new int[] {c == '&' ? AND : OR, i, i + 2});
+                i += 2;
+            } else {
+                int symbol = SYMBOLS.indexOf(c);
+                if(symbol == -1) {
+                    throw error(i, "unexpected character '" + c + "'");
+                }
+                tokens.add(new int[] {SYMBOL_TYPES[symbol], i, i + 1});
+                i++;
+            }
+        }
+        tokens.add(new int[] {END, n, n});
+    }
+
+    /**
+     * Parse a formula that starts at the current token.
+     *
+     * @return The parse tree of the formula.
+     */
+    private AbstractComponent formula() {
+        int[] token = tokens.get(position);
+        switch(token[0]) {
+            case OPEN:
+                return group();
+            case OPEN_DIAMOND:
+                position++;
+                String diamondLabel = label();
+                expect(CLOSE_DIAMOND);
+                AbstractComponent diamondBody = formula();
+                return share(new DiamondModalityComponent(diamondLabel, diamondBody), "<>", diamondLabel, diamondBody);
+            case OPEN_BOX:
+                position++;
+                String boxLabel = label();
+                expect(CLOSE_BOX);
+                AbstractComponent boxBody = formula();
+                return share(new BoxModalityComponent(boxLabel, boxBody), "[]", boxLabel, boxBody);
+            case IDENTIFIER:
+                String text = text(token);
+                if(text.equals("true")) {
+                    position++;
+                    return share(new TrueComponent(), text);
+                } else if(text.equals("false")) {
+                    position++;
+                    return share(new FalseComponent(), text);
+                } else if(text.equals("mu") || text.equals("nu")) {
+                    position++;
+                    String variable = variable();
+                    expect(DOT);
+                    AbstractComponent body = formula();
+                    AbstractComponent binder = text.equals("mu") ?
+                            new MuComponent(variable, body) : new NuComponent(variable, body);
+                    return share(binder, text, variable, body);
+                }
+                String name = variable();
+                return share(new RecursionVariableComponent(name), "X", name);
+            default:
+                throw error(token[1], "expected a formula but found " + describe(token));
+        }
+    }
+
+    /**
+     * Parse a formula between brackets, which may be a chain of conjunctions or disjunctions.
+     *
+     * @return The parse tree of the formula.
+     */
+    private AbstractComponent group() {
+        expect(OPEN);
+        AbstractComponent result = formula();
+
+        int operator = tokens.get(position)[0];
+        if(operator == AND || operator == OR) {
+            while(tokens.get(position)[0] == operator) {
+                position++;
+                AbstractComponent rhs = formula();
+                result = share(operator == AND ? new AndComponent(result, rhs) : new OrComponent(result, rhs),
+                        DESCRIPTIONS[operator], result, rhs);
+            }
+            int[] token = tokens.get(position);
+            if(token[0] == AND || token[0] == OR) {
+                throw error(token[1], "cannot mix '&&' and '||' without brackets");
+            }
+        }
+
+        expect(CLOSE);
+        return result;
+    }
+
+    /**
+     * Parse the label of a modality.
+     *
+     * @return The label.
+     */
+    private String label() {
+        int[] token = expect(IDENTIFIER);
+        String label = text(token);
+        if(!LABEL.matcher(label).matches()) {
+            throw error(token[1], "invalid label '" + label + "'");
+        }
+        return label;
+    }
+
+    /**
+     * Parse the name of a recursion variable.
+     *
+     * @return The name of the variable.
+     */
+    private String variable() {
+        int[] token = tokens.get(position);
+        String name = token[0] == IDENTIFIER ? text(token) : "";
+        if(name.length() != 1 || !Character.isUpperCase(name.charAt(0))) {
+            throw error(token[1], "expected a recursion variable but found " + describe(token));
+        }
+        position++;
+        return name;
+    }
+
+    /**
+     * Consume the current token, which should have the given type.
+     *
+     * @param type The expected type of the token.
+     * @return The token.
+     */
+    private int[] expect(int type) {
+        int[] token = tokens.get(position);
+        if(token[0] != type) {
+            throw error(token[1], "expected " + DESCRIPTIONS[type] + " but found " + describe(token));
+        }
+        position++;
+        return token;
+    }
+
+    /**
+     * Get the text of the given token.
+     *
+     * @param token The token.
+     * @return The part of the input that the token spans.
+     */
+    private String text(int[] token) {
+        return input.substring(token[1], token[2]);
+    }
+
+    /**
+     * Describe the given token in an error message.
+     *
+     * @param token The token.
+     * @return The text of the token between quotes, or a description of the end of the input.
+     */
+    private String describe(int[] token) {
+        return token[0] == END ? DESCRIPTIONS[END] : "'" + text(token) + "'";
+    }
+
+    /**
+     * Create an exception for a syntax error at the given offset in the input.
+     *
+     * @param offset The offset of the character at which the error occurs.
+     * @param message A description of the error.
+     * @return An exception with the message and the line and column of the error.
+     */
+    private RuntimeException error(int offset, String message) {
+        int line = 1, column = 1;
+        for(int i = 0; i < offset; i++) {
+            if(input.charAt(i) == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+        return new RuntimeException("Failed to parse the formula at line " + line + ", column " + column + ": " +
+                message + ".");
+    }
+}
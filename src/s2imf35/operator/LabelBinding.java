@@ -0,0 +1,39 @@
+package s2imf35.operator;
+
+import s2imf35.graph.LTS;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * The id of the label of a modality within a specific graph. Modality components keep the binding of the graph they
+ * were last evaluated on, such that the label only has to be looked up once per graph. The graph is referenced weakly,
+ * since a formula may outlive the graphs it has been evaluated on.
+ */
+final class LabelBinding {
+    // The graph the label is bound to.
+    private final WeakReference<LTS> graph;
+
+    // The id of the label in the graph, -1 if no transition in the graph has the label.
+    final int id;
+
+    /**
+     * Look up the id of the given label in the given graph.
+     *
+     * @param graph The graph the label should be bound to.
+     * @param label The label of the modality.
+     */
+    LabelBinding(LTS graph, String label) {
+        this.graph = new WeakReference<>(graph);
+        this.id = graph.getLabelId(label);
+    }
+
+    /**
+     * Check whether the label is bound to the given graph.
+     *
+     * @param graph The graph the modality is evaluated on.
+     * @return True if the id of the label belongs to the graph, false otherwise.
+     */
+    boolean isBoundTo(LTS graph) {
+        return this.graph.get() == graph;
+    }
+}
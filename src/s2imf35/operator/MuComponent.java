@@ -3,9 +3,9 @@ package s2imf35.operator;
 import s2imf35.Main;
 import s2imf35.PerformanceCounter;
 import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
 
 import java.util.*;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -15,7 +15,7 @@ import java.util.stream.Stream;
 public class MuComponent extends AbstractComponent {
     // The components of the and operator.
     public final String variable;
-    private final AbstractComponent rhs;
+    public final AbstractComponent rhs;
 
     // Is the formula open?
     private boolean isOpen;
@@ -23,54 +23,17 @@ public class MuComponent extends AbstractComponent {
     // Which sub-formulae are open and have the same sign?
     private List<MuComponent> openSubFormulae;
 
-    // Regex for labels.
-    private static final Pattern p = Pattern.compile("[A-Z]");
-
-    /**
-     * Constructor for the default mu component, used as a type detector.
-     */
-    MuComponent() {
-        this.variable = null;
-        this.rhs = new TrueComponent();
-    }
-
     /**
      * Create a mu component with the given recursion variable name and subtree.
      *
      * @param variable The name of the recursion variable.
      * @param rhs The subtree over which the binding is defined.
      */
-    private MuComponent(String variable, AbstractComponent rhs) {
+    MuComponent(String variable, AbstractComponent rhs) {
         this.variable = variable;
         this.rhs = rhs;
     }
 
-    /**
-     * {@inheritDoc}
-     * The input formula is only matches iff the formula starts with 'mu'.
-     */
-    public boolean isMatch(String input) {
-        if(input.startsWith("mu")) {
-            // Find the recursion variable.
-            String variable = input.substring(3, 4);
-
-            // Is the label valid?
-            return p.matcher(variable).find();
-        }
-        return false;
-    }
-
-    public AbstractComponent extract(String input) {
-        // Find the recursion variable.
-        String variable = input.substring(3, 4);
-
-        // Find the formula.
-        String formula = input.substring(5, input.length());
-
-        // Resolve the sub-components and make a new node.
-        return new MuComponent(variable, parse(formula));
-    }
-
     @Override
     public String toLatex() {
         return "\\mu " + variable + ".(" + rhs.toLatex() + ")";
@@ -78,45 +41,53 @@ public class MuComponent extends AbstractComponent {
 
     @SuppressWarnings("Duplicates")
     @Override
-    public Set<Integer> emersonLei(LTS graph, Map<String, Set<Integer>> A, AbstractComponent lastBinder, PerformanceCounter counter) {
+    protected StateSet evaluateEmersonLei(LTS graph, Map<String, StateSet> A, AbstractComponent lastBinder, PerformanceCounter counter) {
         // Is the surrounding binder a different sign?
         if(lastBinder instanceof NuComponent) {
             // Reset the recursion variable of all open sub-formulae bound by a mu statement.
             for(MuComponent c : openSubFormulae) {
-                A.put(c.variable, new HashSet<>());
+                A.put(c.variable, graph.emptySet());
                 counter.resets++;
             }
         }
 
         // Continue evaluating until A remains unchanged.
-        Set<Integer> X;
+        StateSet X;
         do {
             X = A.get(variable);
             A.put(variable, rhs.emersonLei(graph, A, this, counter));
             counter.iterations++;
+            if(counter.profile != null) {
+                counter.profile.iteration(this);
+            }
 
         } while (!X.equals(A.get(variable)));
 
-        return A.get(variable);
+        // Return a copy, such that the caller cannot alter the approximation stored in A.
+        return A.get(variable).copy();
     }
 
     @SuppressWarnings("Duplicates")
     @Override
-    public Set<Integer> naive(LTS graph, Map<String, Set<Integer>> A, PerformanceCounter counter) {
+    protected StateSet evaluateNaive(LTS graph, Map<String, StateSet> A, PerformanceCounter counter) {
         // Start by filling A.
-        A.put(variable, new HashSet<>());
+        A.put(variable, graph.emptySet());
         counter.resets++;
 
         // Continue evaluating until A remains unchanged.
-        Set<Integer> X;
+        StateSet X;
         do {
             X = A.get(variable);
             A.put(variable, rhs.naive(graph, A, counter));
             counter.iterations++;
+            if(counter.profile != null) {
+                counter.profile.iteration(this);
+            }
 
         } while (!X.equals(A.get(variable)));
 
-        return A.get(variable);
+        // Return a copy, such that the caller cannot alter the approximation stored in A.
+        return A.get(variable).copy();
     }
 
     @Override
@@ -137,6 +108,16 @@ public class MuComponent extends AbstractComponent {
         return openFormulae;
     }
 
+    /**
+     * Get the open binders with the same sign within this binder, including the binder itself if it is open. These are
+     * the binders whose approximations are reset when this binder is entered from a binder of the opposite sign.
+     *
+     * @return The open mu components within the formula, as found by {@link #propagateOpenSubFormulae()}.
+     */
+    public List<MuComponent> getOpenSubFormulae() {
+        return Collections.unmodifiableList(openSubFormulae);
+    }
+
     @Override
     public Set<String> propagateOpenVariables() {
         // First, get the open variables of the sub-formula.
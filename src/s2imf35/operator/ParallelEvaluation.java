@@ -0,0 +1,144 @@
+package s2imf35.operator;
+
+import s2imf35.PerformanceCounter;
+import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Helper methods that split the evaluation of a formula into fork/join tasks. The parallel evaluation is only enabled
+ * by the parallel solver, through the performance counter that is passed to every evaluation, and produces the same
+ * sets of states as the sequential evaluation. Evaluations by the other solvers are never split, even if they run
+ * within a fork/join pool.
+ *
+ * Operands of a conjunction or disjunction are only evaluated in a separate task if they do not contain binders, and
+ * the other operand binds none of their free variables. Such operands only read the approximations of the recursion
+ * variables, while an operand with binders writes the approximations of its own variables. Since an inner binder may
+ * reuse the name of a variable that is free in its sibling, the other operand must not bind any of these names. Sweeps
+ * over all states are split into ranges of a multiple of 64 states, such that no two tasks write to the same word of a
+ * bitset.
+ */
+final class ParallelEvaluation {
+    // The number of states below which a sweep is not split any further.
+    private static final int GRAIN = 1 << 12;
+
+    /**
+     * An evaluation of an operand with the given performance counter.
+     */
+    interface Evaluation {
+        StateSet evaluate(AbstractComponent operand, PerformanceCounter counter);
+    }
+
+    /**
+     * A test whether a single state is in the result of a sweep.
+     */
+    interface StatePredicate {
+        boolean test(int state);
+    }
+
+    /**
+     * Check whether the evaluation should be split into tasks.
+     *
+     * @param counter The performance counter of the evaluation.
+     * @return True if the parallel solver enabled the parallel evaluation and the current thread runs in its pool,
+     * false otherwise.
+     */
+    static boolean isEnabled(PerformanceCounter counter) {
+        return counter.parallel && ForkJoinTask.inForkJoinPool();
+    }
+
+    /**
+     * Evaluate both operands of a binary operator, in parallel if one of them has no binders.
+     *
+     * @param lhs The left operand.
+     * @param lhsForkable Whether the left operand contains no binders, and the right operand binds none of its free
+     *                    variables.
+     * @param rhs The right operand.
+     * @param rhsForkable Whether the right operand contains no binders, and the left operand binds none of its free
+     *                    variables.
+     * @param counter A performance counter that measures the performance of the algorithm.
+     * @param evaluation The evaluation that is applied to both operands.
+     * @return The evaluations of the left and right operand.
+     */
+    static StateSet[] evaluateOperands(AbstractComponent lhs, boolean lhsForkable, AbstractComponent rhs,
+                                       boolean rhsForkable, PerformanceCounter counter, Evaluation evaluation) {
+        if(!(lhsForkable || rhsForkable) || !isEnabled(counter)) {
+            StateSet lhsResult = evaluation.evaluate(lhs, counter);
+            return new StateSet[] {lhsResult, evaluation.evaluate(rhs, counter)};
+        }
+
+        // The forked operand counts in a counter of its own, which is merged once it has been joined.
+        AbstractComponent forked = lhsForkable ? lhs : rhs;
+        PerformanceCounter forkedCounter = new PerformanceCounter();
+        forkedCounter.profile = counter.profile;
+        forkedCounter.parallel = true;
+        ForkJoinTask<StateSet> task = ForkJoinTask.adapt(() -> evaluation.evaluate(forked, forkedCounter)).fork();
+        StateSet result = evaluation.evaluate(lhsForkable ? rhs : lhs, counter);
+        StateSet forkedResult = task.join();
+        counter.add(forkedCounter);
+        return lhsForkable ? new StateSet[] {forkedResult, result} : new StateSet[] {result, forkedResult};
+    }
+
+    /**
+     * Find the states of the graph that satisfy the given predicate, testing ranges of states in parallel.
+     *
+     * @param graph The graph whose states are tested.
+     * @param predicate The test whether a state is in the result.
+     * @return The set of states that satisfy the predicate.
+     */
+    static StateSet sweep(LTS graph, StatePredicate predicate) {
+        StateSet result = graph.emptySet();
+        new Sweep(result, predicate, 0, graph.numberOfStates).invoke();
+        return result;
+    }
+
+    /**
+     * A task that tests a range of states, and splits the range in two if it is large.
+     */
+    private static class Sweep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // The set to which the states that satisfy the predicate are added.
+        private final StateSet result;
+
+        // The test whether a state is in the result.
+        private final StatePredicate predicate;
+
+        // The range of states [from, to) to test.
+        private final int from, to;
+
+        /**
+         * Create a task that tests the given range of states.
+         *
+         * @param result The set to which the states that satisfy the predicate are added.
+         * @param predicate The test whether a state is in the result.
+         * @param from The first state of the range.
+         * @param to The state after the last state of the range.
+         */
+        private Sweep(StateSet result, StatePredicate predicate, int from, int to) {
+            this.result = result;
+            this.predicate = predicate;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= GRAIN) {
+                for(int state = from; state < to; state++) {
+                    if(predicate.test(state)) {
+                        result.add(state);
+                    }
+                }
+                return;
+            }
+
+            // Split at a multiple of 64, such that both halves write to different words. The range starts at a
+            // multiple of 64, hence so does the second half.
+            int middle = from + (((to - from) / 2 + 63) & ~63);
+            invokeAll(new Sweep(result, predicate, from, middle), new Sweep(result, predicate, middle, to));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package s2imf35.operator;
 
 import s2imf35.PerformanceCounter;
 import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
 
 import java.util.*;
 
@@ -10,50 +11,31 @@ import java.util.*;
  */
 public class RecursionVariableComponent extends AbstractComponent {
     // The components of the and operator.
-    private final String name;
-
-    /**
-     * Constructor for the default recursion variable symbol, used as a type detector.
-     */
-    RecursionVariableComponent() {
-        this.name = null;
-    }
+    public final String name;
 
     /**
      * Create a recursion variable component with the desired name.
      *
      * @param name The name of the recursion variable.
      */
-    private RecursionVariableComponent(String name) {
+    RecursionVariableComponent(String name) {
         this.name = name;
     }
 
-    public AbstractComponent extract(String input) {
-        return new RecursionVariableComponent(input.replaceAll("\\(\\)", ""));
-    }
-
-    /**
-     * {@inheritDoc}
-     * The input formula is only matches iff the given formula is a single capital letter [A-Z].
-     */
-    public boolean isMatch(String input) {
-        // Is the input a single capital letter?
-        return input.length() == 1 && Character.isUpperCase(input.charAt(0));
-    }
-
     @Override
     public String toLatex() {
         return name;
     }
 
     @Override
-    public Set<Integer> emersonLei(LTS graph, Map<String, Set<Integer>> A, AbstractComponent lastBinder, PerformanceCounter counter) {
-        return A.get(name);
+    protected StateSet evaluateEmersonLei(LTS graph, Map<String, StateSet> A, AbstractComponent lastBinder, PerformanceCounter counter) {
+        // Return a copy, such that the caller cannot alter the approximation stored in A.
+        return A.get(name).copy();
     }
 
     @Override
-    public Set<Integer> naive(LTS graph, Map<String, Set<Integer>> A, PerformanceCounter counter) {
-        return A.get(name);
+    protected StateSet evaluateNaive(LTS graph, Map<String, StateSet> A, PerformanceCounter counter) {
+        return A.get(name).copy();
     }
 
     @Override
@@ -0,0 +1,101 @@
+package s2imf35.operator;
+
+import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A class that holds the result of the last evaluation of a sub-formula, together with the approximations of its free
+ * recursion variables at the time of the evaluation. The result can be reused as long as the sub-formula is evaluated
+ * on the same graph, within the same solve, and none of the approximations has changed. The cache is synchronized,
+ * since the parallel evaluation may evaluate a shared sub-formula in multiple tasks at once.
+ */
+final class ResultCache {
+    // The free recursion variables of the sub-formula.
+    private final String[] variables;
+
+    // The graph and the mapping of approximations the result was computed with.
+    private LTS graph;
+    private Map<String, StateSet> approximations;
+
+    // The approximations of the free variables at the time of the evaluation.
+    private StateSet[] inputs;
+
+    // The result of the evaluation.
+    private StateSet result;
+
+    /**
+     * Create an empty cache for a sub-formula with the given free variables.
+     *
+     * @param variables The free recursion variables of the sub-formula.
+     */
+    ResultCache(Set<String> variables) {
+        this.variables = variables.toArray(new String[0]);
+    }
+
+    /**
+     * Get the cached result, if it is still valid.
+     *
+     * @param graph The graph the sub-formula is evaluated on.
+     * @param A The current approximations of the recursion variables, which is a new mapping for every solve.
+     * @return A copy of the cached result, or null if the sub-formula has to be evaluated again.
+     */
+    synchronized StateSet get(LTS graph, Map<String, StateSet> A) {
+        if(result == null || graph != this.graph || A != approximations) {
+            return null;
+        }
+
+        // The approximations are replaced rather than modified, so an unchanged approximation is usually the same set.
+        for(int i = 0; i < variables.length; i++) {
+            StateSet value = A.get(variables[i]);
+            if(value != inputs[i]) {
+                if(value == null || !value.equals(inputs[i])) {
+                    return null;
+                }
+                inputs[i] = value;
+            }
+        }
+        return result.copy();
+    }
+
+    /**
+     * Get the current approximations of the free variables, which should be taken before the sub-formula is evaluated.
+     *
+     * @param A The current approximations of the recursion variables.
+     * @return The approximation of each free variable.
+     */
+    synchronized StateSet[] inputs(Map<String, StateSet> A) {
+        StateSet[] inputs = new StateSet[variables.length];
+        for(int i = 0; i < variables.length; i++) {
+            inputs[i] = A.get(variables[i]);
+        }
+        return inputs;
+    }
+
+    /**
+     * Store the result of an evaluation.
+     *
+     * @param graph The graph the sub-formula was evaluated on.
+     * @param A The approximations of the recursion variables used in the evaluation.
+     * @param inputs The approximations of the free variables before the evaluation.
+     * @param result The result of the evaluation, of which a copy is stored.
+     */
+    synchronized void put(LTS graph, Map<String, StateSet> A, StateSet[] inputs, StateSet result) {
+        this.graph = graph;
+        this.approximations = A;
+        this.inputs = inputs;
+        this.result = result.copy();
+    }
+
+    /**
+     * Forget the result of the last evaluation, such that the cache no longer refers to the graph and approximations.
+     */
+    synchronized void clear() {
+        graph = null;
+        approximations = null;
+        inputs = null;
+        result = null;
+    }
+}
@@ -2,6 +2,7 @@ package s2imf35.operator;
 
 import s2imf35.PerformanceCounter;
 import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
 
 import java.util.*;
 
@@ -10,31 +11,18 @@ import java.util.*;
  */
 public class TrueComponent extends AbstractComponent {
 
-    /**
-     * {@inheritDoc}
-     * The input formula is only matches iff the formula equals 'true'.
-     */
-    public boolean isMatch(String input) {
-        // Is the input true?
-        return input.equals("true");
-    }
-
-    public AbstractComponent extract(String input) {
-        return new TrueComponent();
-    }
-
     @Override
     public String toLatex() {
         return "true";
     }
 
     @Override
-    public Set<Integer> emersonLei(LTS graph, Map<String, Set<Integer>> A, AbstractComponent lastBinder, PerformanceCounter counter) {
+    protected StateSet evaluateEmersonLei(LTS graph, Map<String, StateSet> A, AbstractComponent lastBinder, PerformanceCounter counter) {
         return graph.S();
     }
 
     @Override
-    public Set<Integer> naive(LTS graph, Map<String, Set<Integer>> A, PerformanceCounter counter) {
+    protected StateSet evaluateNaive(LTS graph, Map<String, StateSet> A, PerformanceCounter counter) {
         return graph.S();
     }
 
@@ -0,0 +1,130 @@
+package s2imf35.server;
+
+import s2imf35.Main;
+import s2imf35.Mode;
+import s2imf35.Parser;
+import s2imf35.Solution;
+import s2imf35.Solver;
+import s2imf35.graph.LTS;
+import s2imf35.operator.AbstractComponent;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A long-running server that checks formulas on graphs, such that the parsed graphs stay in memory and the virtual
+ * machine stays warm between checks. The server only accepts connections from the local machine.
+ *
+ * A client sends one check per line, with the same arguments as on the command line, for example:
+ *
+ *   -graph=input/robots_50.aut -formula=input/player_two_wins_game.mcf -mode=improved
+ *
+ * The mode defaults to the Emerson-Lei Algorithm. The server answers every line with a single line, which is either
+ * the evaluation in the initial state, the number of valid states and the performance counter:
+ *
+ *   evaluation=true, states=1024, i=18, r=0, duration=3
+ *
+ * or the reason the check failed, as "error=message". The line "stats" is answered with the statistics of the cache.
+ * A connection may send any number of lines, and is closed by the client.
+ */
+public class CheckServer {
+    // The port the server listens on.
+    private final int port;
+
+    // The number of connections that are served concurrently.
+    private final int threads;
+
+    // The graphs that have been parsed.
+    private final GraphCache cache;
+
+    /**
+     * Create a server with the given configuration.
+     *
+     * @param port The port to listen on, on the loopback address.
+     * @param threads The number of connections that are served concurrently.
+     * @param cache The cache that holds the parsed graphs.
+     */
+    public CheckServer(int port, int threads, GraphCache cache) {
+        this.port = port;
+        this.threads = threads;
+        this.cache = cache;
+    }
+
+    /**
+     * Accept connections until the process is terminated.
+     *
+     * @throws IOException If the server socket cannot be opened.
+     */
+    public void run() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try(ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("Listening for checks on " + server.getLocalSocketAddress() + ".");
+            while(true) {
+                Socket socket = server.accept();
+                executor.execute(() -> serve(socket));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Answer the checks sent over the given connection until the client closes it.
+     *
+     * @param socket The connection.
+     */
+    private void serve(Socket socket) {
+        try(Socket s = socket;
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while((line = in.readLine()) != null) {
+                line = line.trim();
+                if(!line.isEmpty()) {
+                    out.println(line.equals("stats") ? cache.toString() : check(line));
+                    out.flush();
+                }
+            }
+        } catch(IOException e) {
+            System.out.println("Connection failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Perform a single check.
+     *
+     * @param request The arguments of the check.
+     * @return The line that reports the result of the check.
+     */
+    private String check(String request) {
+        try {
+            // Malformed arguments are reported like any other failure, instead of closing the connection.
+            Map<String, Object> args = Main.parseArguments(request.split("\\s+"));
+            String formulaFile = (String) args.get("-formula");
+            String graphFile = (String) args.get("-graph");
+            if(formulaFile == null || graphFile == null) {
+                return "error=A check requires the arguments -formula=<f_path> and -graph=<g_path>.";
+            }
+            Mode mode = (Mode) args.getOrDefault("-mode", Mode.EMERSON_LEI);
+            int parallelism = (int) args.getOrDefault("-parallelism", Runtime.getRuntime().availableProcessors());
+
+            AbstractComponent formula = Parser.parseFormulaFile(formulaFile);
+            LTS graph = cache.get(graphFile);
+            Solution solution = mode == Mode.PARALLEL ? Solver.solveParallel(formula, graph, parallelism) :
+                    Solver.solve(mode, formula, graph);
+            return "evaluation=" + solution.states.contains(graph.firstState) + ", states=" +
+                    solution.states.size() + ", " + solution.counter + ", duration=" + solution.counter.duration;
+        } catch(NoSuchFileException e) {
+            return "error=The file " + e.getFile() + " does not exist.";
+        } catch(IOException | RuntimeException e) {
+            return "error=" + String.valueOf(e.getMessage()).replace('\n', ' ');
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package s2imf35.server;
+
+import s2imf35.Parser;
+import s2imf35.graph.LTS;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of parsed graphs, keyed by the path of the graph file and its modification time, such that a graph is parsed
+ * again once its file changes. The least recently used graphs are evicted when the estimated size of the cached graphs
+ * exceeds the memory budget. The graph that was requested last is always kept, even if it exceeds the budget alone.
+ *
+ * Graphs are parsed outside of the lock of the cache, such that requests for cached graphs are not held up by a graph
+ * that is being parsed. Requests for a graph that is already being parsed wait for that parse through a future, such
+ * that a graph is never parsed twice concurrently.
+ */
+public class GraphCache {
+    // The memory budget of the cached graphs in bytes.
+    private final long budget;
+
+    // The cached graphs in the order of their last use, the least recently used graph first.
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // The estimated size of all cached graphs in bytes.
+    private long size = 0;
+
+    // The number of requests that were served from the cache, and the number of graphs that were parsed.
+    private long hits = 0, misses = 0;
+
+    // The graphs that are being parsed, by the path of their file.
+    private final ConcurrentHashMap<Path, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * A graph in the cache, along with the modification time of its file.
+     */
+    private static class Entry {
+        final LTS graph;
+        final long modified;
+        final long size;
+
+        Entry(LTS graph, long modified) {
+            this.graph = graph;
+            this.modified = modified;
+            this.size = estimateSize(graph);
+        }
+    }
+
+    /**
+     * Create an empty cache with the given memory budget.
+     *
+     * @param budget The memory budget in bytes.
+     */
+    public GraphCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Get the graph in the given file, and parse it if it is not cached or its file has changed since it was parsed.
+     *
+     * @param file The location of the graph file.
+     * @return A labelled transition system representing the graph defined in the file.
+     * @throws IOException If the file cannot be found or read.
+     */
+    public LTS get(String file) throws IOException {
+        Path path = Paths.get(file).toAbsolutePath().normalize();
+        long modified = Files.getLastModifiedTime(path).toMillis();
+
+        synchronized(this) {
+            Entry entry = entries.get(path);
+            if(entry != null && entry.modified == modified) {
+                hits++;
+                return entry.graph;
+            } else if(entry != null) {
+                // The file has changed, so the graph is outdated.
+                entries.remove(path);
+                size -= entry.size;
+            }
+        }
+
+        // Wait for the graph if another request is parsing it already.
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+        CompletableFuture<Entry> future = loading.putIfAbsent(path, created);
+        if(future != null) {
+            return await(future).graph;
+        }
+
+        try {
+            Entry entry = new Entry(Parser.parseSystemFile(path.toString()), modified);
+            synchronized(this) {
+                misses++;
+                Entry previous = entries.put(path, entry);
+                if(previous != null) {
+                    size -= previous.size;
+                }
+                size += entry.size;
+                evict();
+            }
+            created.complete(entry);
+            return entry.graph;
+        } catch(Throwable e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(path, created);
+        }
+    }
+
+    /**
+     * Wait for a graph that is being parsed by another request.
+     *
+     * @param future The future of the parsed graph.
+     * @return The graph along with the modification time of its file.
+     * @throws IOException If the file cannot be found or read.
+     */
+    private Entry await(CompletableFuture<Entry> future) throws IOException {
+        try {
+            Entry entry = future.join();
+            synchronized(this) {
+                hits++;
+            }
+            return entry;
+        } catch(CompletionException e) {
+            // Rethrow the failure of the parse, which is either an I/O error, a syntax error or an error of the JVM.
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if(e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * Evict the least recently used graphs until the cache fits in its budget, or only a single graph remains.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+        while(size > budget && entries.size() > 1) {
+            size -= iterator.next().getValue().size;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Estimate the number of bytes taken by a graph in the CSR format. Every transition is stored as a start and an end
+     * point, and once more in both the successor and the predecessor index, which also hold an offset per state and
+     * label.
+     *
+     * @param graph The graph.
+     * @return The estimated size of the graph in bytes.
+     */
+    private static long estimateSize(LTS graph) {
+        return 16L * graph.numberOfTransitions + 8L * (graph.numberOfStates + 1) * graph.numberOfLabels();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "graphs=" + entries.size() + ", bytes=" + size + ", hits=" + hits + ", misses=" + misses;
+    }
+}
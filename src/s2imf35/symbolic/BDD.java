@@ -0,0 +1,434 @@
+package s2imf35.symbolic;
+
+import java.util.Arrays;
+
+/**
+ * A manager of reduced ordered binary decision diagrams. The nodes are identified by integers, where 0 and 1 are the
+ * terminals false and true, and every other node is stored once in a unique table, such that two functions are equal
+ * if and only if their nodes are equal. The results of the operations are stored in a direct-mapped operation cache.
+ *
+ * Variables are ordered by their index, where variable 0 is at the root. Nodes are never freed, so a manager should
+ * only live as long as the computation it is used for.
+ */
+public class BDD {
+    // The terminal nodes.
+    public static final int FALSE = 0, TRUE = 1;
+
+    // The operations stored in the cache.
+    private static final int AND = 0, OR = 1, NOT = 2, SHIFT = 3, RELPROD = 4;
+
+    // The number of variables, which is also the variable of the terminals.
+    public final int numberOfVariables;
+
+    // The variable and children of each node.
+    private int[] variables, lows, highs;
+
+    // The number of nodes, including the terminals.
+    private int size = 2;
+
+    // The unique table, holding node + 1 for every inner node, or 0 for an empty slot.
+    private int[] table;
+
+    // The operation cache, holding the operation, operands and result of each entry.
+    private int[] cacheOperations, cacheLhs, cacheRhs, cacheExtra, cacheResults;
+
+    /**
+     * Create a manager for functions over the given number of variables.
+     *
+     * @param numberOfVariables The number of variables.
+     */
+    public BDD(int numberOfVariables) {
+        this.numberOfVariables = numberOfVariables;
+        int capacity = 1 << 16;
+        variables = new int[capacity];
+        lows = new int[capacity];
+        highs = new int[capacity];
+        variables[FALSE] = variables[TRUE] = numberOfVariables;
+        table = new int[2 * capacity];
+        allocateCache(capacity);
+    }
+
+    /**
+     * Get the number of nodes created so far, including the terminals.
+     *
+     * @return The number of nodes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the variable at the root of the given node.
+     *
+     * @param node The node.
+     * @return The variable of the node, or the number of variables for a terminal.
+     */
+    public int variable(int node) {
+        return variables[node];
+    }
+
+    /**
+     * Get the child of the given node for which its variable is false.
+     *
+     * @param node An inner node.
+     * @return The low child.
+     */
+    public int low(int node) {
+        return lows[node];
+    }
+
+    /**
+     * Get the child of the given node for which its variable is true.
+     *
+     * @param node An inner node.
+     * @return The high child.
+     */
+    public int high(int node) {
+        return highs[node];
+    }
+
+    /**
+     * Find or create the node with the given variable and children.
+     *
+     * @param variable The variable of the node, which should be smaller than the variables of the children.
+     * @param low The child for which the variable is false.
+     * @param high The child for which the variable is true.
+     * @return The node, or the child if both children are equal.
+     */
+    public int mk(int variable, int low, int high) {
+        if(low == high) {
+            return low;
+        }
+
+        int mask = table.length - 1;
+        for(int i = hash(variable, low, high) & mask; ; i = (i + 1) & mask) {
+            int node = table[i] - 1;
+            if(node == -1) {
+                break;
+            } else if(variables[node] == variable && lows[node] == low && highs[node] == high) {
+                return node;
+            }
+        }
+
+        if(size == variables.length) {
+            grow();
+        }
+        int node = size++;
+        variables[node] = variable;
+        lows[node] = low;
+        highs[node] = high;
+        insert(node);
+        return node;
+    }
+
+    /**
+     * Create the function that holds for exactly the first count of the given assignments.
+     *
+     * @param keys The assignments in ascending order without duplicates, where the most significant of the lowest
+     *             vars.length bits is the value of vars[0].
+     * @param count The number of assignments at the start of keys that are used.
+     * @param vars The variables of the assignments, in ascending order.
+     * @return The node of the function.
+     */
+    public int ofAssignments(long[] keys, int count, int[] vars) {
+        return ofAssignments(keys, 0, count, vars, 0);
+    }
+
+    /**
+     * Create the function that holds for exactly the given range of assignments, which agree on the variables before
+     * the given level.
+     *
+     * @param keys The assignments in ascending order without duplicates.
+     * @param from The start of the range, inclusive.
+     * @param to The end of the range, exclusive.
+     * @param vars The variables of the assignments, in ascending order.
+     * @param level The index of the next variable to decide on.
+     * @return The node of the function.
+     */
+    private int ofAssignments(long[] keys, int from, int to, int[] vars, int level) {
+        if(from == to) {
+            return FALSE;
+        } else if(level == vars.length) {
+            return TRUE;
+        }
+
+        // The assignments with the variable set follow those without it.
+        long bit = 1L << (vars.length - 1 - level);
+        int split = from;
+        while(split < to && (keys[split] & bit) == 0) {
+            split++;
+        }
+        int low = ofAssignments(keys, from, split, vars, level + 1);
+        int high = ofAssignments(keys, split, to, vars, level + 1);
+        return mk(vars[level], low, high);
+    }
+
+    /**
+     * Compute the conjunction of two functions.
+     *
+     * @param a The first function.
+     * @param b The second function.
+     * @return The node of a and b.
+     */
+    public int and(int a, int b) {
+        if(a == FALSE || b == FALSE) {
+            return FALSE;
+        } else if(a == TRUE || a == b) {
+            return b;
+        } else if(b == TRUE) {
+            return a;
+        }
+        if(a > b) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+
+        int result = lookup(AND, a, b, 0);
+        if(result == -1) {
+            int v = Math.min(variables[a], variables[b]);
+            int low = and(cofactor(a, v, false), cofactor(b, v, false));
+            int high = and(cofactor(a, v, true), cofactor(b, v, true));
+            result = store(AND, a, b, 0, mk(v, low, high));
+        }
+        return result;
+    }
+
+    /**
+     * Compute the disjunction of two functions.
+     *
+     * @param a The first function.
+     * @param b The second function.
+     * @return The node of a or b.
+     */
+    public int or(int a, int b) {
+        if(a == TRUE || b == TRUE) {
+            return TRUE;
+        } else if(a == FALSE || a == b) {
+            return b;
+        } else if(b == FALSE) {
+            return a;
+        }
+        if(a > b) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+
+        int result = lookup(OR, a, b, 0);
+        if(result == -1) {
+            int v = Math.min(variables[a], variables[b]);
+            int low = or(cofactor(a, v, false), cofactor(b, v, false));
+            int high = or(cofactor(a, v, true), cofactor(b, v, true));
+            result = store(OR, a, b, 0, mk(v, low, high));
+        }
+        return result;
+    }
+
+    /**
+     * Compute the negation of a function.
+     *
+     * @param a The function.
+     * @return The node of not a.
+     */
+    public int not(int a) {
+        if(a <= TRUE) {
+            return TRUE - a;
+        }
+
+        int result = lookup(NOT, a, 0, 0);
+        if(result == -1) {
+            result = store(NOT, a, 0, 0, mk(variables[a], not(lows[a]), not(highs[a])));
+        }
+        return result;
+    }
+
+    /**
+     * Rename every variable of a function to the variable that is the given distance further in the order. The shift
+     * preserves the order of the variables, so the shape of the diagram does not change.
+     *
+     * @param a The function.
+     * @param distance The distance the variables are moved by, such that no variable moves past the next variable of
+     *                 the function.
+     * @return The node of the renamed function.
+     */
+    public int shift(int a, int distance) {
+        if(a <= TRUE) {
+            return a;
+        }
+
+        int result = lookup(SHIFT, a, distance, 0);
+        if(result == -1) {
+            int low = shift(lows[a], distance), high = shift(highs[a], distance);
+            result = store(SHIFT, a, distance, 0, mk(variables[a] + distance, low, high));
+        }
+        return result;
+    }
+
+    /**
+     * Compute the relational product of two functions, which is the conjunction of the functions in which the variables
+     * of the given cube are existentially quantified.
+     *
+     * @param a The first function.
+     * @param b The second function.
+     * @param cube The conjunction of the variables to quantify.
+     * @return The node of exists cube. (a and b).
+     */
+    public int relProd(int a, int b, int cube) {
+        if(a == FALSE || b == FALSE) {
+            return FALSE;
+        } else if(a == TRUE && b == TRUE) {
+            return TRUE;
+        }
+        if(a > b) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+
+        // Skip the quantified variables above both functions.
+        int v = Math.min(variables[a], variables[b]);
+        while(variables[cube] < v) {
+            cube = highs[cube];
+        }
+        if(cube == TRUE) {
+            return and(a, b);
+        }
+
+        int result = lookup(RELPROD, a, b, cube);
+        if(result == -1) {
+            int low = relProd(cofactor(a, v, false), cofactor(b, v, false), cube);
+            if(variables[cube] == v) {
+                // The variable is quantified, so either value of the variable suffices.
+                result = low == TRUE ? TRUE : or(low, relProd(cofactor(a, v, true), cofactor(b, v, true), cube));
+            } else {
+                result = mk(v, low, relProd(cofactor(a, v, true), cofactor(b, v, true), cube));
+            }
+            store(RELPROD, a, b, cube, result);
+        }
+        return result;
+    }
+
+    /**
+     * Create the conjunction of the given variables.
+     *
+     * @param vars The variables, in ascending order.
+     * @return The node of the cube.
+     */
+    public int cube(int[] vars) {
+        int result = TRUE;
+        for(int i = vars.length - 1; i >= 0; i--) {
+            result = mk(vars[i], FALSE, result);
+        }
+        return result;
+    }
+
+    /**
+     * Get the function that remains of the given function when the given variable is fixed.
+     *
+     * @param a The function.
+     * @param variable A variable that is not below the root of the function.
+     * @param value The value of the variable.
+     * @return The cofactor of the function.
+     */
+    private int cofactor(int a, int variable, boolean value) {
+        if(variables[a] != variable) {
+            return a;
+        }
+        return value ? highs[a] : lows[a];
+    }
+
+    /**
+     * Find the result of an operation in the cache.
+     *
+     * @param operation The operation.
+     * @param lhs The first operand.
+     * @param rhs The second operand.
+     * @param extra The third operand.
+     * @return The result of the operation, or -1 if it is not in the cache.
+     */
+    private int lookup(int operation, int lhs, int rhs, int extra) {
+        int i = hash(operation * 31 + extra, lhs, rhs) & (cacheResults.length - 1);
+        if(cacheOperations[i] == operation && cacheLhs[i] == lhs && cacheRhs[i] == rhs && cacheExtra[i] == extra) {
+            return cacheResults[i];
+        }
+        return -1;
+    }
+
+    /**
+     * Store the result of an operation in the cache, replacing the entry that was stored in the same slot.
+     *
+     * @param operation The operation.
+     * @param lhs The first operand.
+     * @param rhs The second operand.
+     * @param extra The third operand.
+     * @param result The result of the operation.
+     * @return The result of the operation.
+     */
+    private int store(int operation, int lhs, int rhs, int extra, int result) {
+        int i = hash(operation * 31 + extra, lhs, rhs) & (cacheResults.length - 1);
+        cacheOperations[i] = operation;
+        cacheLhs[i] = lhs;
+        cacheRhs[i] = rhs;
+        cacheExtra[i] = extra;
+        cacheResults[i] = result;
+        return result;
+    }
+
+    /**
+     * Double the capacity of the nodes, the unique table and the operation cache.
+     */
+    private void grow() {
+        int capacity = 2 * variables.length;
+        variables = Arrays.copyOf(variables, capacity);
+        lows = Arrays.copyOf(lows, capacity);
+        highs = Arrays.copyOf(highs, capacity);
+
+        table = new int[2 * capacity];
+        for(int node = 2; node < size; node++) {
+            insert(node);
+        }
+        allocateCache(capacity);
+    }
+
+    /**
+     * Place a node in a free slot of the unique table.
+     *
+     * @param node The node.
+     */
+    private void insert(int node) {
+        int mask = table.length - 1;
+        int i = hash(variables[node], lows[node], highs[node]) & mask;
+        while(table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = node + 1;
+    }
+
+    /**
+     * Create an empty operation cache.
+     *
+     * @param capacity The number of entries, which should be a power of two.
+     */
+    private void allocateCache(int capacity) {
+        cacheOperations = new int[capacity];
+        Arrays.fill(cacheOperations, -1);
+        cacheLhs = new int[capacity];
+        cacheRhs = new int[capacity];
+        cacheExtra = new int[capacity];
+        cacheResults = new int[capacity];
+    }
+
+    /**
+     * Mix three integers into a hash code.
+     *
+     * @param a The first integer.
+     * @param b The second integer.
+     * @param c The third integer.
+     * @return The hash code.
+     */
+    private static int hash(int a, int b, int c) {
+        int h = a * 0x9E3779B1 + b * 0x85EBCA77 + c * 0xC2B2AE3D;
+        return h ^ h >>> 15;
+    }
+}
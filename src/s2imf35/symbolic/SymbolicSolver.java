@@ -0,0 +1,274 @@
+package s2imf35.symbolic;
+
+import s2imf35.PerformanceCounter;
+import s2imf35.graph.LTS;
+import s2imf35.graph.StateSet;
+import s2imf35.operator.*;
+
+import java.util.*;
+
+/**
+ * A solver that evaluates the parse tree with the Emerson-Lei Algorithm on sets of states represented by binary
+ * decision diagrams. A state s is encoded by the bits of s, most significant bit first, where bit i is variable 2i.
+ * Variable 2i + 1 holds bit i of the end point of a transition, such that the transition relation of each label is a
+ * function over the interleaved bits of its start and end points.
+ *
+ * The modalities are evaluated with a relational product. For the diamond modality, the set X is renamed to the
+ * variables of the end points, after which the end points are quantified out of R(x, x') and X(x'). The box modality
+ * is the complement of the diamond modality of the complement.
+ *
+ * Since equal sets are equal nodes, comparing two approximations takes constant time. The diagrams are small when the
+ * graph has regular structure, as is the case for the products of identical components in the experiments.
+ */
+public class SymbolicSolver {
+    // The graph the formula is evaluated on.
+    private final LTS graph;
+
+    // The performance counter that measures the performance of the algorithm.
+    private final PerformanceCounter counter;
+
+    // The manager of the diagrams.
+    private final BDD bdd;
+
+    // The number of bits of a state.
+    private final int bits;
+
+    // The variables of the states and of the end points of transitions.
+    private final int[] currentVariables, nextVariables;
+
+    // The conjunction of the variables of the end points of transitions.
+    private final int nextCube;
+
+    // The set of all states of the graph.
+    private final int states;
+
+    // The transition relation of each label, built on first use, or -1 if it has not been built yet.
+    private final int[] relations;
+
+    // The current approximations of the recursion variables.
+    private final Map<String, Integer> A = new HashMap<>();
+
+    /**
+     * Create a symbolic solver for the given graph.
+     *
+     * @param graph The graph the formula should be applied to.
+     * @param counter A performance counter that measures the performance of the algorithm.
+     */
+    public SymbolicSolver(LTS graph, PerformanceCounter counter) {
+        this.graph = graph;
+        this.counter = counter;
+
+        bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(graph.numberOfStates - 1));
+        bdd = new BDD(2 * bits);
+        currentVariables = new int[bits];
+        nextVariables = new int[bits];
+        for(int i = 0; i < bits; i++) {
+            currentVariables[i] = 2 * i;
+            nextVariables[i] = 2 * i + 1;
+        }
+        nextCube = bdd.cube(nextVariables);
+
+        long[] keys = new long[graph.numberOfStates];
+        for(int s = 0; s < keys.length; s++) {
+            keys[s] = s;
+        }
+        states = bdd.ofAssignments(keys, keys.length, currentVariables);
+
+        relations = new int[graph.numberOfLabels()];
+        Arrays.fill(relations, -1);
+    }
+
+    /**
+     * Find the set of states in which the formula holds.
+     *
+     * @param formula The formula that has to be evaluated.
+     * @return The set of states S in which the formula holds.
+     */
+    public StateSet solve(AbstractComponent formula) {
+        // Initialize A with the correct values.
+        for(AbstractComponent c : formula.findVariableBindings(new HashSet<>())) {
+            if(c instanceof MuComponent) {
+                A.put(((MuComponent) c).variable, BDD.FALSE);
+            } else if(c instanceof NuComponent) {
+                A.put(((NuComponent) c).variable, states);
+            }
+        }
+
+        return toStateSet(evaluate(formula, null));
+    }
+
+    /**
+     * Get the number of nodes that were created in the evaluation.
+     *
+     * @return The number of nodes of the diagrams.
+     */
+    public int size() {
+        return bdd.size();
+    }
+
+    /**
+     * Find the set of states in which the formula holds, given the current approximations of the recursion variables.
+     *
+     * @param component The sub-formula to evaluate.
+     * @param lastBinder The binder that encloses the sub-formula most closely, null if there is none.
+     * @return The node of the set of states in which the sub-formula holds.
+     */
+    private int evaluate(AbstractComponent component, AbstractComponent lastBinder) {
+        if(component instanceof TrueComponent) {
+            return states;
+        } else if(component instanceof FalseComponent) {
+            return BDD.FALSE;
+        } else if(component instanceof RecursionVariableComponent) {
+            Integer X = A.get(((RecursionVariableComponent) component).name);
+            if(X == null) {
+                throw new RuntimeException("The recursion variable \"" + component.toLatex() + "\" is not bound.");
+            }
+            return X;
+        } else if(component instanceof AndComponent) {
+            AndComponent and = (AndComponent) component;
+            return bdd.and(evaluate(and.lhs, lastBinder), evaluate(and.rhs, lastBinder));
+        } else if(component instanceof OrComponent) {
+            OrComponent or = (OrComponent) component;
+            return bdd.or(evaluate(or.lhs, lastBinder), evaluate(or.rhs, lastBinder));
+        } else if(component instanceof DiamondModalityComponent) {
+            DiamondModalityComponent diamond = (DiamondModalityComponent) component;
+            int label = graph.getLabelId(diamond.label);
+            int X = evaluate(diamond.rhs, lastBinder);
+            return label == -1 ? BDD.FALSE : predecessors(label, X);
+        } else if(component instanceof BoxModalityComponent) {
+            BoxModalityComponent box = (BoxModalityComponent) component;
+            int label = graph.getLabelId(box.label);
+            int X = evaluate(box.rhs, lastBinder);
+            if(label == -1) {
+                return states;
+            }
+            return bdd.and(states, bdd.not(predecessors(label, bdd.and(states, bdd.not(X)))));
+        } else if(component instanceof MuComponent) {
+            MuComponent mu = (MuComponent) component;
+            if(lastBinder instanceof NuComponent) {
+                // Reset the recursion variable of all open sub-formulae bound by a mu statement.
+                for(MuComponent c : mu.getOpenSubFormulae()) {
+                    A.put(c.variable, BDD.FALSE);
+                    counter.resets++;
+                }
+            }
+            return fixpoint(mu, mu.variable, mu.rhs);
+        } else if(component instanceof NuComponent) {
+            NuComponent nu = (NuComponent) component;
+            if(lastBinder instanceof MuComponent) {
+                // Reset the recursion variable of all open sub-formulae bound by a nu statement.
+                for(NuComponent c : nu.getOpenSubFormulae()) {
+                    A.put(c.variable, states);
+                    counter.resets++;
+                }
+            }
+            return fixpoint(nu, nu.variable, nu.rhs);
+        }
+        throw new RuntimeException("Unknown component " + component + ".");
+    }
+
+    /**
+     * Iterate a fixpoint from its current approximation until it is stable.
+     *
+     * @param binder The binder of the fixpoint.
+     * @param variable The recursion variable of the fixpoint.
+     * @param rhs The body of the fixpoint.
+     * @return The node of the fixpoint.
+     */
+    private int fixpoint(AbstractComponent binder, String variable, AbstractComponent rhs) {
+        // Continue evaluating until A remains unchanged, which is a comparison of nodes.
+        int X;
+        do {
+            X = A.get(variable);
+            A.put(variable, evaluate(rhs, binder));
+            counter.iterations++;
+        } while(X != A.get(variable));
+
+        return X;
+    }
+
+    /**
+     * Find the states that have a transition with the given label to a state in the given set.
+     *
+     * @param label The id of the label.
+     * @param X The node of the set of end points.
+     * @return The node of the set of start points.
+     */
+    private int predecessors(int label, int X) {
+        return bdd.relProd(relation(label), bdd.shift(X, 1), nextCube);
+    }
+
+    /**
+     * Get the transition relation of the given label, and build it on first use.
+     *
+     * @param label The id of the label.
+     * @return The node of the set of pairs of start and end points of the transitions with the label.
+     */
+    private int relation(int label) {
+        if(relations[label] == -1) {
+            // Interleave the bits of the start and end points, and sort the pairs in the order of the variables.
+            int count = 0;
+            for(int s = 0; s < graph.numberOfStates; s++) {
+                count += graph.getDegree(s, label);
+            }
+            long[] keys = new long[count];
+            for(int s = 0, k = 0; s < graph.numberOfStates; s++) {
+                for(int i = 0, d = graph.getDegree(s, label); i < d; i++) {
+                    keys[k++] = interleave(s, graph.getEndpoint(s, label, i));
+                }
+            }
+            Arrays.sort(keys);
+
+            // Remove the duplicate transitions in place.
+            int unique = 0;
+            for(int k = 0; k < count; k++) {
+                if(unique == 0 || keys[k] != keys[unique - 1]) {
+                    keys[unique++] = keys[k];
+                }
+            }
+
+            int[] vars = new int[2 * bits];
+            for(int i = 0; i < vars.length; i++) {
+                vars[i] = i;
+            }
+            relations[label] = bdd.ofAssignments(keys, unique, vars);
+        }
+        return relations[label];
+    }
+
+    /**
+     * Interleave the bits of a transition, most significant bit first, starting with the start point.
+     *
+     * @param start The start point of the transition.
+     * @param end The end point of the transition.
+     * @return The assignment of the variables that represents the transition.
+     */
+    private long interleave(int start, int end) {
+        long key = 0;
+        for(int i = bits - 1; i >= 0; i--) {
+            key = key << 2 | (start >>> i & 1) << 1 | end >>> i & 1;
+        }
+        return key;
+    }
+
+    /**
+     * Convert a set of states represented by a diagram to an explicit set.
+     *
+     * @param X The node of the set.
+     * @return The states in the set.
+     */
+    private StateSet toStateSet(int X) {
+        StateSet result = graph.emptySet();
+        for(int s = 0; s < graph.numberOfStates; s++) {
+            int node = X;
+            while(node > BDD.TRUE) {
+                int bit = s >>> (bits - 1 - bdd.variable(node) / 2) & 1;
+                node = bit == 1 ? bdd.high(node) : bdd.low(node);
+            }
+            if(node == BDD.TRUE) {
+                result.add(s);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,48 @@
+package s2imf35.util;
+
+import s2imf35.Parser;
+import s2imf35.graph.LTS;
+import s2imf35.graph.LTSSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Convert the given .aut files, or all .aut files in the given directories, to snapshots in the binary format of
+ * {@link LTSSnapshot}. The snapshot is stored next to the original file, after which it is loaded instead of the
+ * original file. Without arguments, the graphs of experiment 4 are converted.
+ */
+public class SnapshotConversion {
+    public static void main(String[] args) throws IOException {
+        if(args.length == 0) {
+            args = new String[] {"inputs/experiment4"};
+        }
+
+        for(String arg : args) {
+            File file = new File(arg);
+            File[] files = file.isDirectory() ? file.listFiles((directory, name) -> name.endsWith(".aut")) :
+                    new File[] {file};
+            if(files == null) {
+                throw new IOException("The directory '" + arg + "' cannot be read.");
+            }
+
+            for(File aut : files) {
+                convert(aut.getPath());
+            }
+        }
+    }
+
+    private static void convert(String aut) throws IOException {
+        String snapshot = aut.replaceFirst("\\.aut$", "") + LTSSnapshot.EXTENSION;
+
+        Instant start = Instant.now();
+        LTS lts = Parser.parseSystemFile(aut, true);
+        LTSSnapshot.write(lts, Paths.get(snapshot));
+        long duration = Duration.between(start, Instant.now()).toMillis();
+
+        System.out.println("Converted '" + aut + "' to '" + snapshot + "' in " + duration + " milliseconds.");
+    }
+}